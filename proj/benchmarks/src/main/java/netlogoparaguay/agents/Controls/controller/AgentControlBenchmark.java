@@ -0,0 +1,114 @@
+package netlogoparaguay.agents.Controls.controller;
+
+import com.jme3.math.Vector3f;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+import netlogoparaguay.benchmarks.BenchmarkWorld;
+import netlogoparaguay.simulation.SimulationEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Custo por tick dos métodos do {@link AgentControl}: cada operação chama o método uma vez
+ * para cada agente da população, como o motor faz em um tick. Fica no mesmo pacote do
+ * AgentControl para acessar os métodos protegidos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentControlBenchmark {
+
+    private static final float TICK = 1f / 60f;
+    // Mais que um passo de qualquer facção (velocidade efetiva * TICK), ao quadrado
+    private static final float ARRIVAL_DISTANCE_SQ = 0.25f * 0.25f;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int population;
+
+    private SimulationEngine engine;
+    private AgentControl[] controls;
+    private Vector3f[] moveTargets;
+    private Vector3f[] startPositions;
+    // Destino atual de cada agente no moveTo: vai e volta entre a posição inicial e o alvo
+    private Vector3f[] currentTargets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = BenchmarkWorld.create(population);
+        AgentStore store = engine.getAgentStore();
+        controls = new AgentControl[store.size()];
+        moveTargets = new Vector3f[store.size()];
+        startPositions = new Vector3f[store.size()];
+        currentTargets = new Vector3f[store.size()];
+        Random random = new Random(BenchmarkWorld.SEED);
+        for (int slot = 0; slot < store.size(); slot++) {
+            controls[slot] = store.getAgent(slot).getAgentControl();
+            // Dentro da área em que o moveTo prende os agentes, para que todo alvo seja alcançável
+            moveTargets[slot] = new Vector3f(
+                    (random.nextFloat() - 0.5f) * (SimulationEngine.DEFAULT_AREA_WIDTH - 1f),
+                    (random.nextFloat() - 0.5f) * (SimulationEngine.DEFAULT_AREA_HEIGHT - 1f), 0);
+            startPositions[slot] = store.getAgent(slot).getPosition().clone();
+        }
+    }
+
+    /**
+     * Devolve os agentes às posições do início, para que cada iteração do moveTo meça o mesmo
+     * trajeto em vez de agentes que já chegaram ao alvo na iteração anterior.
+     */
+    @Setup(Level.Iteration)
+    public void resetPositions() {
+        for (int i = 0; i < controls.length; i++) {
+            controls[i].agent.setPosition(startPositions[i]);
+            currentTargets[i] = moveTargets[i];
+        }
+    }
+
+    @Benchmark
+    public void decideNextState(Blackhole bh) {
+        for (AgentControl control : controls) {
+            control.decideNextState();
+            bh.consume(control.currentState);
+        }
+    }
+
+    @Benchmark
+    public void findClosestEnemy(Blackhole bh) {
+        for (AgentControl control : controls) {
+            bh.consume(control.findClosestEnemy());
+        }
+    }
+
+    /**
+     * Um passo de movimento por agente. Quem chega ao destino passa a voltar para o outro extremo,
+     * então nenhuma chamada vira um "já estou no alvo" sem custo.
+     */
+    @Benchmark
+    public void moveTo() {
+        for (int i = 0; i < controls.length; i++) {
+            AgentControl control = controls[i];
+            Vector3f target = currentTargets[i];
+            float dx = target.x - control.agent.getX();
+            float dy = target.y - control.agent.getY();
+            if (dx * dx + dy * dy < ARRIVAL_DISTANCE_SQ) {
+                target = target == moveTargets[i] ? startPositions[i] : moveTargets[i];
+                currentTargets[i] = target;
+            }
+            control.moveTo(target, TICK);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package netlogoparaguay.benchmarks;
+
+import netlogoparaguay.simulation.SimulationEngine;
+
+/**
+ * Monta um mundo de simulação reprodutível para os benchmarks: metade guaranis, metade
+ * jesuítas, semente fixa e alguns ticks de aquecimento para que os agentes já tenham
+ * estados e alvos variados.
+ */
+public final class BenchmarkWorld {
+
+    public static final long SEED = 42L;
+    private static final int WARMUP_TICKS = 10;
+    private static final float TICK = 1f / 60f;
+
+    private BenchmarkWorld() {
+    }
+
+    public static SimulationEngine create(int population) {
+        SimulationEngine engine = new SimulationEngine();
+        engine.setSeed(SEED);
+        engine.setMaxAgentsPerFaction(Math.max(population, SimulationEngine.DEFAULT_MAX_AGENTS_PER_FACTION));
+        // maxLoops 0: sem limite de ticks
+        engine.reset(population / 2, population - population / 2, 0);
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            engine.step(TICK);
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,151 @@
+package netlogoparaguay.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import netlogoparaguay.simulation.SimulationAppState;
+import netlogoparaguay.simulation.SimulationClock;
+import netlogoparaguay.simulation.SimulationEngine;
+
+/**
+ * Benchmark de escala ponta a ponta: para cada combinação de população (guaranis x jesuítas)
+ * e velocidade da UI, roda frames como o {@link netlogoparaguay.simulation.SimulationAppStates}
+ * faz (o {@link SimulationClock} avançando o motor com o orçamento de tempo por frame), sem
+ * janela nem renderização, e grava uma linha de CSV com ticks/s, latência p50/p99 dos ticks,
+ * p99 dos frames, a velocidade realmente atingida e o pico de heap.
+ *
+ * Uso: ScalingBenchmark [arquivo.csv] [frames] [populações] [velocidades]
+ * Populações no formato "g:j,g:j" (ex.: 10:10,1000:1000); velocidades "0.25,1,8".
+ */
+public class ScalingBenchmark {
+
+    private static final float FRAME_SECONDS = 1f / 60f;
+    private static final String DEFAULT_POPULATIONS = "5:5,50:50,500:500,5000:5000,25000:25000";
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : "build/reports/scaling/scaling.csv");
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int[][] populations = parsePopulations(args.length > 2 ? args[2] : DEFAULT_POPULATIONS);
+        float[] speeds = args.length > 3 ? parseSpeeds(args[3]) : defaultSpeeds();
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            out.println("guaranis,jesuits,speed,frames,ticks,ticksPerSec,tickP50Ms,tickP99Ms,frameP99Ms,achievedSpeed,heapPeakMB,finished");
+            for (int[] population : populations) {
+                for (float speed : speeds) {
+                    String row = run(population[0], population[1], speed, frames);
+                    out.println(row);
+                    out.flush();
+                    System.out.println(row);
+                }
+            }
+        }
+        System.out.println("Relatório salvo em " + output.toAbsolutePath());
+    }
+
+    private static String run(int guaranis, int jesuits, float speed, int frames) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+
+        SimulationEngine engine = new SimulationEngine();
+        engine.setSeed(BenchmarkWorld.SEED);
+        engine.setMaxAgentsPerFaction(Math.max(Math.max(guaranis, jesuits), SimulationEngine.DEFAULT_MAX_AGENTS_PER_FACTION));
+        engine.reset(guaranis, jesuits, 0);
+        SimulationClock clock = new SimulationClock();
+
+        LongSamples tickSamples = new LongSamples(frames * 8);
+        long[] frameNanos = new long[frames];
+        long heapPeak = memory.getHeapMemoryUsage().getUsed();
+
+        int frame = 0;
+        long start = System.nanoTime();
+        for (; frame < frames && !engine.isFinished(); frame++) {
+            long frameStart = System.nanoTime();
+            clock.advance(FRAME_SECONDS, speed, engine, tickSamples);
+            frameNanos[frame] = System.nanoTime() - frameStart;
+            heapPeak = Math.max(heapPeak, memory.getHeapMemoryUsage().getUsed());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] ticks = tickSamples.sorted();
+        long[] framesSorted = Arrays.copyOf(frameNanos, frame);
+        Arrays.sort(framesSorted);
+        double simulatedSeconds = engine.getCurrentLoop() * clock.getTickSeconds();
+        // Velocidade atingida: tempo simulado por tempo de jogo (frames a 60 fps)
+        double achievedSpeed = frame == 0 ? 0 : simulatedSeconds / (frame * FRAME_SECONDS);
+
+        return String.format(Locale.ROOT, "%d,%d,%.2f,%d,%d,%.1f,%.4f,%.4f,%.4f,%.3f,%.1f,%b",
+                guaranis, jesuits, speed, frame, engine.getCurrentLoop(),
+                engine.getCurrentLoop() / Math.max(seconds, 1e-9),
+                percentile(ticks, 0.50) / 1e6, percentile(ticks, 0.99) / 1e6,
+                percentile(framesSorted, 0.99) / 1e6, achievedSpeed,
+                heapPeak / (1024.0 * 1024.0), engine.isFinished());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static int[][] parsePopulations(String spec) {
+        String[] pairs = spec.split(",");
+        int[][] result = new int[pairs.length][2];
+        for (int i = 0; i < pairs.length; i++) {
+            String[] gj = pairs[i].trim().split(":");
+            result[i][0] = Integer.parseInt(gj[0]);
+            result[i][1] = Integer.parseInt(gj[1]);
+        }
+        return result;
+    }
+
+    private static float[] parseSpeeds(String spec) {
+        String[] parts = spec.split(",");
+        float[] result = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Float.parseFloat(parts[i].trim());
+        }
+        return result;
+    }
+
+    private static float[] defaultSpeeds() {
+        float[] result = new float[SimulationAppState.SPEED_LEVELS.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = SimulationAppState.SPEED_LEVELS.get(i);
+        }
+        return result;
+    }
+
+    // Amostras de duração em um array primitivo que cresce, sem boxing por tick
+    private static final class LongSamples implements java.util.function.LongConsumer {
+        private long[] values;
+        private int size;
+
+        LongSamples(int initialCapacity) {
+            values = new long[Math.max(16, initialCapacity)];
+        }
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
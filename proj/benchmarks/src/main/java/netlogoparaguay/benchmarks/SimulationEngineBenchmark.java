@@ -0,0 +1,68 @@
+package netlogoparaguay.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import netlogoparaguay.agents.Controls.Agent.Agent;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+import netlogoparaguay.simulation.SimulationEngine;
+import netlogoparaguay.simulation.SimulationListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks das operações do motor e do gerenciador de recursos usadas a cada tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationEngineBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int population;
+
+    private SimulationEngine engine;
+    private int next;
+
+    // Um mundo novo a cada iteração: as mortes de uma iteração não se acumulam na seguinte
+    @Setup(Level.Iteration)
+    public void setUp() {
+        engine = BenchmarkWorld.create(population);
+        // Um listener, como a cena teria, para medir também o repasse do evento
+        engine.addListener(new SimulationListener() { });
+        next = 0;
+    }
+
+    @Benchmark
+    public Object getAvailableResources() {
+        return engine.getResourceManager().getAvailableResources();
+    }
+
+    /**
+     * Uma morte completa, como no combate: dano letal (markDead, evento e aviso ao motor e aos
+     * listeners) e liberação do slot no pool, como o fim do tick faz. Para a população não se
+     * esgotar no meio da iteração, um agente da mesma facção é reposto em seguida; o custo
+     * medido inclui essa reposição, que reaproveita o agente recém-liberado do pool.
+     */
+    @Benchmark
+    public Agent agentDeath() {
+        AgentStore store = engine.getAgentStore();
+        int slot = next < store.size() ? next : 0;
+        next = slot + 1;
+        Agent agent = store.getAgent(slot);
+        agent.takeDamage(Float.MAX_VALUE);
+        engine.getAgentPool().releaseDead();
+        return engine.dynamicallyAddAgent(agent.getFaction() == AgentStore.GUARANI ? "Guarani" : "Jesuit");
+    }
+}
@@ -51,7 +51,7 @@ public class ControlPanel extends Node {
 
         // Controle de agentes Guarani
         // Usando os métodos corretos de SimulationAppState para obter as CONFIGURAÇÕES
-        LabeledSlider guaraniSlider = new LabeledSlider("Guaranis:", simulation.getGuaraniCountSetting(), 1, 20, 200, 50, font);
+        LabeledSlider guaraniSlider = new LabeledSlider("Guaranis:", simulation.getGuaraniCountSetting(), 1, SimulationAppState.MAX_POPULATION_SETTING, 200, 50, font);
         guaraniSlider.setLocalTranslation(0, -60, 0);
         // O setValue aqui está correto, pois getGuaraniCountSetting() retorna o valor para o slider
         guaraniSlider.setValue(simulation.getGuaraniCountSetting());
@@ -59,7 +59,7 @@ public class ControlPanel extends Node {
         attachChild(guaraniSlider);
 
         // Controle de agentes Jesuitas
-        LabeledSlider jesuitSlider = new LabeledSlider("Jesuitas:", simulation.getJesuitCountSetting(), 1, 20, 200, 50, font);
+        LabeledSlider jesuitSlider = new LabeledSlider("Jesuitas:", simulation.getJesuitCountSetting(), 1, SimulationAppState.MAX_POPULATION_SETTING, 200, 50, font);
         jesuitSlider.setLocalTranslation(0, -120, 0);
         jesuitSlider.setValue(simulation.getJesuitCountSetting());
         jesuitSlider.onChange(value -> simulation.setJesuitCount(value)); // setJesuitCount é o setter correto
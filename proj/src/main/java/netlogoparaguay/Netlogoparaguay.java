@@ -12,10 +12,16 @@ import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.system.AppSettings;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import netlogoparaguay.replay.ReplayAppState;
+import netlogoparaguay.simulation.EnsembleAppState;
 import netlogoparaguay.simulation.SimulationAppState;
 import netlogoparaguay.simulation.SimulationAppStates;
 import netlogoparaguay.agents.Controls.controller.ControlPanel;
 import netlogoparaguay.agents.Controls.Panel.Button;
+import netlogoparaguay.agents.Controls.Panel.ProfilerOverlay;
 import netlogoparaguay.agents.Controls.Panel.StatsPanel;
 import netlogoparaguay.agents.Controls.Panel.StatsUpdater;
 
@@ -25,8 +31,37 @@ public class Netlogoparaguay extends SimpleApplication implements ActionListener
     private SimulationAppStates simulationEngine;
     public static final String MAPPING_UI_CLICK = "UIClick";
 
+    // Argumentos de linha de comando: --gravar <arquivo> grava a execução, --replay <arquivo> só reproduz,
+    // --metricas <arquivo.csv> grava as métricas de cada tick, --ensemble <n> roda mais n mundos em paralelo,
+    // --guaranis <n> / --jesuitas <n> definem a população inicial e --teto <n> o máximo de agentes por facção
+    // (populações grandes ativam o modo de grande população e o desenho por pontos)
+    private Path recordPath;
+    private Path replayPath;
+    private Path metricsPath;
+    private int ensembleWorlds = 0;
+    private Integer guaraniCount;
+    private Integer jesuitCount;
+    private Integer maxAgentsPerFaction;
+
     public static void main(String[] args) {
         Netlogoparaguay app = new Netlogoparaguay();
+        for (int i = 0; i + 1 < args.length; i++) {
+            if ("--gravar".equals(args[i])) {
+                app.recordPath = Paths.get(args[++i]);
+            } else if ("--replay".equals(args[i])) {
+                app.replayPath = Paths.get(args[++i]);
+            } else if ("--metricas".equals(args[i])) {
+                app.metricsPath = Paths.get(args[++i]);
+            } else if ("--ensemble".equals(args[i])) {
+                app.ensembleWorlds = Integer.parseInt(args[++i]);
+            } else if ("--guaranis".equals(args[i])) {
+                app.guaraniCount = Integer.valueOf(args[++i]);
+            } else if ("--jesuitas".equals(args[i])) {
+                app.jesuitCount = Integer.valueOf(args[++i]);
+            } else if ("--teto".equals(args[i])) {
+                app.maxAgentsPerFaction = Integer.valueOf(args[++i]);
+            }
+        }
         AppSettings settings = new AppSettings(true);
         settings.setTitle("Simulação NetLogo Paraguai");
         settings.setResolution(1280, 720);
@@ -52,10 +87,21 @@ public class Netlogoparaguay extends SimpleApplication implements ActionListener
         DirectionalLight sun = new DirectionalLight(new Vector3f(-0.5f, -0.8f, -0.4f).normalizeLocal(), new ColorRGBA(0.8f, 0.8f, 0.8f, 1.0f));
         rootNode.addLight(sun);
 
+        if (replayPath != null) {
+            // Modo replay: nenhum motor nem painel, só a reprodução do log
+            stateManager.attach(new ReplayAppState(replayPath));
+            setDisplayStatView(false);
+            return;
+        }
+
         uiAppState = new SimulationAppState();
         simulationEngine = new SimulationAppStates();
         uiAppState.setSimulationEngineReference(simulationEngine);
         simulationEngine.setUiAppStateReference(uiAppState);
+        // Antes do painel, para que os sliders já mostrem os valores pedidos
+        if (guaraniCount != null) uiAppState.setGuaraniCount(guaraniCount);
+        if (jesuitCount != null) uiAppState.setJesuitCount(jesuitCount);
+        if (maxAgentsPerFaction != null) uiAppState.setMaxAgentsPerFaction(maxAgentsPerFaction);
 
         ControlPanel controlPanelUI = new ControlPanel(this, uiAppState);
         float cpMargin = 20f;
@@ -85,6 +131,26 @@ public class Netlogoparaguay extends SimpleApplication implements ActionListener
         stateManager.attach(uiAppState);
         stateManager.attach(simulationEngine);
         stateManager.attach(statsUpdater);
+        if (ensembleWorlds > 0) {
+            stateManager.attach(new EnsembleAppState(simulationEngine, ensembleWorlds));
+        }
+        // Por último, para medir o grafo de cena e o render depois de todos os updates (F3 mostra)
+        stateManager.attach(new ProfilerOverlay(simulationEngine.getEngine()));
+
+        if (recordPath != null) {
+            try {
+                simulationEngine.startRecording(recordPath);
+            } catch (IOException e) {
+                System.err.println("ERRO: Não foi possível gravar em " + recordPath + ": " + e.getMessage());
+            }
+        }
+        if (metricsPath != null) {
+            try {
+                simulationEngine.getMetrics().startCsvStream(metricsPath);
+            } catch (IOException e) {
+                System.err.println("ERRO: Não foi possível gravar as métricas em " + metricsPath + ": " + e.getMessage());
+            }
+        }
 
         setDisplayStatView(false);
         setDisplayFps(false);
@@ -1,69 +1,96 @@
 package netlogoparaguay.agents.Controls.Agent;
 
-import com.jme3.asset.AssetManager;
 import com.jme3.math.Vector3f;
-import com.jme3.scene.Node;
-import com.jme3.scene.Spatial;
 import netlogoparaguay.agents.Controls.controller.AgentControl;
 import netlogoparaguay.resources.ResourceType;
-import netlogoparaguay.simulation.SimulationAppStates;
+import netlogoparaguay.simulation.SimulationEngine;
+import netlogoparaguay.simulation.jfr.AgentDeathEvent;
 
 /**
  * Classe base abstrata para todos os agentes na simulação.
- * Um Agente é um Node na cena do jMonkeyEngine, contendo seu modelo visual
- * e seus atributos básicos como vida, força, velocidade e vitalidade.
+ * O estado do agente (posição e atributos básicos como vida, força, velocidade e
+ * vitalidade) fica nos arrays do {@link AgentStore}; este objeto é só uma vista sobre o
+ * seu slot e não depende da cena do jMonkeyEngine. A representação visual fica em {@link AgentView}.
  * Ele também possui um AgentControl para gerenciar seu comportamento.
+ *
+ * Atributos guardados no store: vida, força (dano de ataque), pontos de velocidade
+ * (velocidade de movimento), vitalidade (vida máxima e dano absorvido), total de recursos
+ * coletados e o flag de multiplicação do ciclo.
  */
-public abstract class Agent extends Node {
-    // Atributos básicos do agente
-    protected float health = 100;
-    protected boolean isDead = false;
-    protected int strength = 0; // Afeta o dano de ataque
-    protected int speedPoints = 0;    // Afeta a velocidade de movimento (pontos de velocidade)
-    protected int vitality = 0;   // Afeta a vida máxima e regeneração/dano absorvido
+public abstract class Agent {
+    private String name;
+    private final AgentControl control;
+    private final AgentStore store;
+
+    // Slot atual no AgentStore; mantido pelo store (muda no swap-remove, -1 quando liberado)
+    int slot = -1;
+    // Identificador da vida atual do agente, atribuído pelo store a cada entrada no mundo
+    // (um agente reciclado pelo pool recebe um id novo)
+    int id = -1;
+
+    // Cópia da posição do store para quem trabalha com Vector3f
+    private final Vector3f position = new Vector3f();
 
     // Atributos para lógica de multiplicação
     protected static final int VITALITY_NEEDED_TO_MULTIPLY = 3;
     protected static final int RESOURCES_COLLECTED_TO_MULTIPLY = 3;
-    protected int resourcesCollectedTotal = 0;
-    protected boolean hasMultipliedThisCycle = false;
 
     // Referência ao gerenciador da simulação para interações globais
-    protected SimulationAppStates simulationManager;
+    protected SimulationEngine simulationManager;
 
     /**
      * Construtor para um Agente.
      * @param name Nome do agente.
-     * @param assetManager O gerenciador de assets para carregar modelos.
-     * @param simulationManager Referência ao SimulationAppStates para interações com o mundo.
+     * @param simulationManager Referência ao SimulationEngine para interações com o mundo.
      */
-    public Agent(String name, AssetManager assetManager, SimulationAppStates simulationManager) {
-        super(name);
-        this.simulationManager = simulationManager;
+    public Agent(String name, SimulationEngine simulationManager) {
+        this(name, simulationManager, true);
+    }
 
-        Spatial model = loadModel(assetManager);
-        if (model != null) {
-            this.attachChild(model);
-        } else {
-            System.err.println("Modelo para o agente " + name + " não pôde ser carregado!");
+    /**
+     * @param attach Se false, o agente é criado fora do store (sem slot), pronto para
+     *               ficar guardado no {@link AgentPool} até ser usado.
+     */
+    Agent(String name, SimulationEngine simulationManager, boolean attach) {
+        this.name = name;
+        this.simulationManager = simulationManager;
+        this.store = simulationManager.getAgentStore();
+        if (attach) {
+            store.add(this);
         }
 
-        AgentControl control = createControl();
+        this.control = createControl();
         if (control != null) {
-            this.addControl(control);
+            control.setAgent(this);
         } else {
             System.err.println("Controle para o agente " + name + " não pôde ser criado!");
         }
 
-        this.health = calculateMaxHealth();
+        if (attach) {
+            store.setHealth(slot, calculateMaxHealth());
+            if (control != null) {
+                control.setRandom(simulationManager.newAgentRandom());
+            }
+        }
     }
 
     /**
-     * Método abstrato para carregar o modelo 3D (Spatial) específico do agente.
-     * @param assetManager O gerenciador de assets.
-     * @return O Spatial que representa o agente.
+     * Recoloca no store um agente guardado no pool, como se fosse recém-criado:
+     * atributos zerados, vida cheia e controle no estado inicial.
      */
-    protected abstract Spatial loadModel(AssetManager assetManager);
+    void recycle(String newName, Vector3f position) {
+        this.name = newName;
+        store.add(this);
+        respawn(position);
+        if (control != null) {
+            control.resetState();
+        }
+    }
+
+    /**
+     * Identificador da facção no {@link AgentStore} (ex.: {@link AgentStore#GUARANI}).
+     */
+    public abstract int getFaction();
 
     /**
      * Método abstrato para criar o AgentControl específico para este tipo de agente.
@@ -76,16 +103,26 @@ public abstract class Agent extends Node {
      * @param amount A quantidade base de dano.
      */
     public void takeDamage(float amount) {
-        if (isDead) return;
+        if (isDead()) return;
 
-        float damageReduction = Math.min(vitality * 0.02f, 0.5f);
+        float damageReduction = Math.min(store.getVitality(slot) * 0.02f, 0.5f);
         float actualDamage = amount * (1 - damageReduction);
 
-        health -= actualDamage;
+        float health = store.getHealth(slot) - actualDamage;
+        store.setHealth(slot, Math.max(health, 0));
 
         if (health <= 0) {
-            health = 0;
-            isDead = true;
+            store.markDead(slot);
+            AgentDeathEvent event = new AgentDeathEvent();
+            if (event.shouldCommit()) {
+                event.agentId = id;
+                event.faction = getFaction() == AgentStore.GUARANI ? "Guarani" : "Jesuit";
+                event.damage = actualDamage;
+                event.x = store.getX(slot);
+                event.y = store.getY(slot);
+                event.loop = simulationManager != null ? simulationManager.getCurrentLoop() : -1;
+                event.commit();
+            }
             if (simulationManager != null) {
                 simulationManager.notifyAgentDeath(this);
             }
@@ -97,11 +134,11 @@ public abstract class Agent extends Node {
      * @param position A nova posição para o agente após o respawn.
      */
     public void respawn(Vector3f position) {
-        health = calculateMaxHealth();
-        isDead = false;
-        hasMultipliedThisCycle = false;
-        resourcesCollectedTotal = 0;
-        setLocalTranslation(position);
+        if (slot < 0) return;
+        store.setHealth(slot, calculateMaxHealth());
+        store.setMultiplied(slot, false);
+        store.setResourcesCollected(slot, 0);
+        setPosition(position);
     }
 
     /**
@@ -109,21 +146,20 @@ public abstract class Agent extends Node {
      * @param type O {@link ResourceType} do recurso coletado.
      */
     public void collectResource(ResourceType type) {
-        if (isDead) return;
+        if (isDead()) return;
 
-        resourcesCollectedTotal++;
+        store.setResourcesCollected(slot, store.getResourcesCollected(slot) + 1);
 
         switch (type) {
             case WOOD:
-                strength += 2;
+                store.setStrength(slot, store.getStrength(slot) + 2);
                 break;
             case SOY:
-                vitality += 1;
-                health = Math.min(health + 20, calculateMaxHealth());
+                store.setVitality(slot, store.getVitality(slot) + 1);
+                store.setHealth(slot, Math.min(store.getHealth(slot) + 20, calculateMaxHealth()));
                 break;
             case MATE:
-                speedPoints += 2;
-                AgentControl control = getControl(AgentControl.class);
+                store.setSpeedPoints(slot, store.getSpeedPoints(slot) + 2);
                 if (control != null) {
                     control.updateEffectiveSpeed();
                 }
@@ -136,16 +172,16 @@ public abstract class Agent extends Node {
      * @return true se pode multiplicar, false caso contrário.
      */
     public boolean canMultiply() {
-        return !isDead && !hasMultipliedThisCycle &&
-                vitality >= VITALITY_NEEDED_TO_MULTIPLY &&
-                resourcesCollectedTotal >= RESOURCES_COLLECTED_TO_MULTIPLY;
+        return !isDead() && !store.hasMultiplied(slot) &&
+                store.getVitality(slot) >= VITALITY_NEEDED_TO_MULTIPLY &&
+                store.getResourcesCollected(slot) >= RESOURCES_COLLECTED_TO_MULTIPLY;
     }
 
     /**
      * Chamado quando o agente se multiplica com sucesso.
      */
     public void didMultiply() {
-        this.hasMultipliedThisCycle = true;
+        if (slot >= 0) store.setMultiplied(slot, true);
     }
 
     /**
@@ -153,7 +189,7 @@ public abstract class Agent extends Node {
      * (O nome deste método foi corrigido do typo anterior).
      */
     public void resetMultiplicationPossibility() {
-        this.hasMultipliedThisCycle = false;
+        if (slot >= 0) store.setMultiplied(slot, false);
     }
 
     /**
@@ -161,18 +197,53 @@ public abstract class Agent extends Node {
      * @return A vida máxima calculada.
      */
     public float calculateMaxHealth() {
-        return 100 + vitality * 10;
+        return 100 + getVitality() * 10;
+    }
+
+    public void setPosition(Vector3f position) { setPosition(position.x, position.y, position.z); }
+
+    public void setPosition(float x, float y, float z) {
+        if (slot >= 0) store.setPosition(slot, x, y);
+    }
+
+    /**
+     * Posição atual do agente (o plano da simulação é XY, z é sempre 0).
+     * O vetor retornado é reutilizado a cada chamada e não deve ser alterado.
+     */
+    public Vector3f getPosition() {
+        if (slot >= 0) position.set(store.getX(slot), store.getY(slot), 0);
+        return position;
+    }
+
+    // Leituras diretas do store, sem escrever em nenhum vetor: seguras na fase paralela do tick
+    public float getX() { return slot < 0 ? position.x : store.getX(slot); }
+    public float getY() { return slot < 0 ? position.y : store.getY(slot); }
+
+    public float distanceTo(Agent other) {
+        float dx = other.getX() - getX();
+        float dy = other.getY() - getY();
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public float distanceTo(Vector3f point) {
+        float dx = point.x - getX();
+        float dy = point.y - getY();
+        return (float) Math.sqrt(dx * dx + dy * dy);
     }
 
     // --- Getters ---
-    public boolean isDead() { return isDead; }
-    public float getHealth() { return health; }
-    public int getStrength() { return strength; }
-    public int getSpeedPoints() { return speedPoints; }
-    public int getVitality() { return vitality; }
-    public SimulationAppStates getSimulationManager() { return simulationManager; }
+    // Um agente cujo slot já foi liberado conta como morto e tem atributos zerados.
+    public String getName() { return name; }
+    public int getSlot() { return slot; }
+    public int getId() { return id; }
+    public boolean isDead() { return slot < 0 || store.isDead(slot); }
+    public float getHealth() { return slot < 0 ? 0 : store.getHealth(slot); }
+    public int getStrength() { return slot < 0 ? 0 : store.getStrength(slot); }
+    public int getSpeedPoints() { return slot < 0 ? 0 : store.getSpeedPoints(slot); }
+    public int getVitality() { return slot < 0 ? 0 : store.getVitality(slot); }
+    public SimulationEngine getSimulationManager() { return simulationManager; }
 
     public AgentControl getAgentControl() {
-        return getControl(AgentControl.class);
+        return control;
     }
 }
\ No newline at end of file
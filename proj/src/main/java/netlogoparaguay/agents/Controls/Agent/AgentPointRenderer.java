@@ -0,0 +1,129 @@
+package netlogoparaguay.agents.Controls.Agent;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+import java.nio.FloatBuffer;
+import netlogoparaguay.simulation.SimulationEngine;
+
+/**
+ * Desenha todos os agentes como pontos de uma única malha ({@link Mesh.Mode#Points}).
+ * A cada atualização as posições e cores são copiadas do {@link AgentStore} para os
+ * buffers de vértices já alocados, sem nenhum Spatial por agente: o custo de percorrer o
+ * grafo de cena não cresce com a população. Os buffers só são realocados quando a
+ * população passa da capacidade atual.
+ */
+public class AgentPointRenderer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final float POINT_SIZE = 6f;
+
+    private static final ColorRGBA GUARANI_COLOR = new ColorRGBA(0.2f, 0.8f, 0.3f, 1);
+    private static final ColorRGBA JESUIT_COLOR = new ColorRGBA(0.8f, 0.2f, 0.2f, 1);
+
+    private final Mesh mesh = new Mesh();
+    private final Geometry geometry;
+    private FloatBuffer positions;
+    private FloatBuffer colors;
+    private int capacity;
+
+    public AgentPointRenderer(AssetManager assetManager) {
+        this(assetManager, SimulationEngine.DEFAULT_AREA_WIDTH, SimulationEngine.DEFAULT_AREA_HEIGHT);
+    }
+
+    /**
+     * @param areaWidth Largura do mundo desenhado (define o volume fixo da malha).
+     * @param areaHeight Altura do mundo desenhado.
+     */
+    public AgentPointRenderer(AssetManager assetManager, float areaWidth, float areaHeight) {
+        mesh.setMode(Mesh.Mode.Points);
+        allocate(INITIAL_CAPACITY);
+
+        Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        mat.setBoolean("VertexColor", true);
+        mat.setFloat("PointSize", POINT_SIZE);
+
+        geometry = new Geometry("AgentPoints", mesh);
+        geometry.setMaterial(mat);
+        // Os agentes ficam sempre dentro da área da simulação; um volume fixo evita
+        // recalcular o bound varrendo todos os vértices a cada frame
+        mesh.setBound(new BoundingBox(Vector3f.ZERO, areaWidth / 2f, areaHeight / 2f, 1f));
+    }
+
+    /**
+     * Copia para a malha a posição e a cor (pela facção) de cada agente vivo do store.
+     */
+    public void update(AgentStore store) {
+        int n = store.size();
+        begin(n);
+        int count = 0;
+        for (int slot = 0; slot < n; slot++) {
+            if (store.isDead(slot)) continue;
+            put(store.getX(slot), store.getY(slot), store.getFaction(slot));
+            count++;
+        }
+        end(count);
+    }
+
+    /**
+     * Igual a {@link #update(AgentStore)}, a partir de arrays (ex.: estado de um replay).
+     * @param count Quantos agentes dos arrays devem ser desenhados.
+     */
+    public void update(int count, float[] xs, float[] ys, byte[] factions) {
+        begin(count);
+        for (int i = 0; i < count; i++) {
+            put(xs[i], ys[i], factions[i]);
+        }
+        end(count);
+    }
+
+    private void begin(int maxCount) {
+        if (maxCount > capacity) {
+            allocate(Math.max(maxCount, capacity * 2));
+        }
+        positions.clear();
+        colors.clear();
+    }
+
+    private void put(float x, float y, int faction) {
+        positions.put(x).put(y).put(0f);
+        ColorRGBA c = faction == AgentStore.GUARANI ? GUARANI_COLOR : JESUIT_COLOR;
+        colors.put(c.r).put(c.g).put(c.b).put(c.a);
+    }
+
+    private void end(int count) {
+        positions.flip();
+        colors.flip();
+
+        mesh.getBuffer(VertexBuffer.Type.Position).updateData(positions);
+        mesh.getBuffer(VertexBuffer.Type.Color).updateData(colors);
+        mesh.updateCounts();
+        geometry.setCullHint(count == 0 ? Geometry.CullHint.Always : Geometry.CullHint.Inherit);
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /** Tamanho, em pixels, de cada ponto (ex.: menor nas miniaturas). */
+    public void setPointSize(float pixels) {
+        geometry.getMaterial().setFloat("PointSize", pixels);
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        positions = BufferUtils.createFloatBuffer(newCapacity * 3);
+        colors = BufferUtils.createFloatBuffer(newCapacity * 4);
+        positions.limit(0);
+        colors.limit(0);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.setBuffer(VertexBuffer.Type.Color, 4, colors);
+        mesh.updateCounts();
+    }
+}
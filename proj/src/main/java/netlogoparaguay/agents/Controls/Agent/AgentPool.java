@@ -0,0 +1,203 @@
+package netlogoparaguay.agents.Controls.Agent;
+
+import com.jme3.math.Vector3f;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import netlogoparaguay.simulation.SimulationEngine;
+import netlogoparaguay.utils.SnapshotBuffer;
+
+/**
+ * Pool de agentes por facção. Agentes mortos ou removidos voltam para cá quando o
+ * {@link AgentStore} libera o slot e são reaproveitados nos próximos nascimentos via
+ * {@link Agent#respawn(Vector3f)}, em vez de criar um Guarani/Jesuit (e o seu controle) novo.
+ * <p>
+ * Um agente só volta a ser usado depois que o slot dele foi liberado, então quem ainda
+ * guarda a referência de um agente morto (ex.: alvo de ataque) o vê como morto até lá.
+ */
+public class AgentPool {
+
+    private static final int FACTION_COUNT = 2;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final SimulationEngine engine;
+    private final AgentStore store;
+
+    private final Agent[][] pooled = new Agent[FACTION_COUNT][INITIAL_CAPACITY];
+    private final int[] pooledCount = new int[FACTION_COUNT];
+
+    public AgentPool(SimulationEngine engine) {
+        this.engine = engine;
+        this.store = engine.getAgentStore();
+    }
+
+    /**
+     * Coloca um agente da facção no store, reaproveitando um do pool quando houver.
+     * @param factionId {@link AgentStore#GUARANI} ou {@link AgentStore#JESUIT}.
+     * @param name Nome do agente.
+     * @param position Posição inicial.
+     * @return O agente, já vivo e com atributos iniciais.
+     */
+    public Agent acquire(int factionId, String name, Vector3f position) {
+        Agent agent;
+        if (pooledCount[factionId] > 0) {
+            agent = pooled[factionId][--pooledCount[factionId]];
+            pooled[factionId][pooledCount[factionId]] = null;
+        } else {
+            agent = create(factionId);
+        }
+        agent.recycle(name, position);
+        return agent;
+    }
+
+    /**
+     * Remove o agente do slot e o guarda no pool.
+     */
+    public void release(int slot) {
+        Agent agent = store.getAgent(slot);
+        store.remove(slot);
+        push(agent);
+    }
+
+    /**
+     * Libera os slots de todos os agentes mortos, guardando-os no pool.
+     * @return Quantos agentes foram liberados.
+     */
+    public int releaseDead() {
+        int released = 0;
+        for (int slot = store.size() - 1; slot >= 0; slot--) {
+            if (store.isDead(slot)) {
+                release(slot);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Esvazia o store, guardando todos os agentes no pool.
+     */
+    public void releaseAll() {
+        for (int slot = store.size() - 1; slot >= 0; slot--) {
+            release(slot);
+        }
+    }
+
+    /**
+     * Garante que a facção tenha pelo menos {@code peak} agentes entre vivos e guardados,
+     * para que os nascimentos até esse pico não precisem construir agentes.
+     */
+    public void prewarm(int factionId, int peak) {
+        int missing = peak - store.getAliveCount(factionId) - pooledCount[factionId];
+        for (int i = 0; i < missing; i++) {
+            push(create(factionId));
+        }
+    }
+
+    /**
+     * Grava em um checkpoint todos os agentes do store, na ordem dos slots, com nome, id e
+     * atributos. O comportamento de cada um é gravado à parte ({@code AgentControl.writeState}).
+     */
+    public void writeState(SnapshotBuffer out) {
+        out.putInt(store.getNextId());
+        int n = store.size();
+        out.putInt(n);
+        for (int slot = 0; slot < n; slot++) {
+            Agent agent = store.getAgent(slot);
+            out.putByte(store.getFaction(slot));
+            out.putInt(agent.id);
+            out.putString(agent.getName());
+            out.putFloat(store.getX(slot)).putFloat(store.getY(slot));
+            out.putFloat(store.getHealth(slot));
+            out.putInt(store.getStrength(slot));
+            out.putInt(store.getSpeedPoints(slot));
+            out.putInt(store.getVitality(slot));
+            out.putInt(store.getResourcesCollected(slot));
+            out.putBoolean(store.isDead(slot));
+            out.putBoolean(store.hasMultiplied(slot));
+        }
+    }
+
+    /**
+     * Esvazia o store e recoloca os agentes gravados em {@link #writeState}, nos mesmos
+     * slots e com os mesmos ids (os objetos vêm do pool, como em qualquer nascimento).
+     * @return Os agentes restaurados, na ordem dos slots.
+     */
+    public Agent[] readState(ByteBuffer in) {
+        releaseAll();
+        int nextId = in.getInt();
+        int n = in.getInt();
+        Agent[] restored = new Agent[n];
+        Vector3f position = new Vector3f();
+        for (int i = 0; i < n; i++) {
+            int factionId = in.get();
+            int id = in.getInt();
+            String name = SnapshotBuffer.getString(in);
+            position.set(in.getFloat(), in.getFloat(), 0);
+            Agent agent = acquire(factionId, name, position);
+            int slot = agent.slot;
+            agent.id = id;
+            store.setHealth(slot, in.getFloat());
+            store.setStrength(slot, in.getInt());
+            store.setSpeedPoints(slot, in.getInt());
+            store.setVitality(slot, in.getInt());
+            store.setResourcesCollected(slot, in.getInt());
+            if (SnapshotBuffer.getBoolean(in)) {
+                store.markDead(slot);
+            }
+            store.setMultiplied(slot, SnapshotBuffer.getBoolean(in));
+            restored[i] = agent;
+        }
+        store.setNextId(nextId);
+        return restored;
+    }
+
+    /**
+     * Confere, sem alterar nada, se os dados a seguir são um estado válido de {@link #writeState}
+     * (facções conhecidas, ids únicos e menores que o próximo id) e avança {@code in} até o fim dele.
+     * @return Quantos agentes o estado contém.
+     * @throws IllegalArgumentException se os dados forem inválidos.
+     * @throws java.nio.BufferUnderflowException se os dados acabarem antes do fim.
+     */
+    public static int validateState(ByteBuffer in) {
+        int nextId = in.getInt();
+        int n = in.getInt();
+        // Cada agente ocupa pelo menos 38 bytes (sem contar o nome)
+        if (nextId < 0 || n < 0 || n > in.remaining() / 38) {
+            throw new IllegalArgumentException("Cabeçalho de agentes inválido: nextId=" + nextId + ", n=" + n);
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            int factionId = in.get();
+            int id = in.getInt();
+            if (factionId != AgentStore.GUARANI && factionId != AgentStore.JESUIT) {
+                throw new IllegalArgumentException("Facção inválida no agente " + id + ": " + factionId);
+            }
+            if (id < 0 || id >= nextId || !ids.add(id)) {
+                throw new IllegalArgumentException("Id de agente inválido ou repetido: " + id);
+            }
+            int nameLength = in.getInt();
+            if (nameLength < 0 || nameLength > in.remaining()) {
+                throw new IllegalArgumentException("Nome inválido no agente " + id);
+            }
+            // nome, posição, vida, 4 atributos inteiros e 2 flags
+            in.position(in.position() + nameLength + 3 * 4 + 4 * 4 + 2);
+        }
+        return n;
+    }
+
+    public int getPooledCount(int factionId) { return pooledCount[factionId]; }
+
+    private Agent create(int factionId) {
+        return factionId == AgentStore.GUARANI ? new Guarani(engine) : new Jesuit(engine);
+    }
+
+    private void push(Agent agent) {
+        int f = agent.getFaction();
+        if (pooledCount[f] == pooled[f].length) {
+            pooled[f] = Arrays.copyOf(pooled[f], pooled[f].length * 2);
+        }
+        pooled[f][pooledCount[f]++] = agent;
+    }
+}
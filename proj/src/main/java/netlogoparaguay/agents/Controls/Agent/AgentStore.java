@@ -0,0 +1,171 @@
+package netlogoparaguay.agents.Controls.Agent;
+
+import java.util.Arrays;
+
+/**
+ * Armazena o estado de todos os agentes em arrays primitivos (structure-of-arrays),
+ * indexados por um slot denso 0..size-1. Percorrer posições e atributos vira uma
+ * varredura sequencial de memória em vez de seguir ponteiros de objeto em objeto.
+ *
+ * Cada {@link Agent} é apenas uma vista sobre o seu slot. Ao remover um agente, o último
+ * slot é movido para o buraco (swap-remove) e a vista correspondente é atualizada.
+ * Durante um tick os mortos são só marcados; {@link AgentPool#releaseDead()} libera os slots
+ * ao final, para que a ordem de iteração não mude no meio do tick.
+ */
+public class AgentStore {
+
+    public static final int GUARANI = 0;
+    public static final int JESUIT = 1;
+    private static final int FACTION_COUNT = 2;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size = 0;
+    private int nextId = 0;
+    private final int[] aliveCount = new int[FACTION_COUNT];
+
+    // Estado por slot
+    private Agent[] agents = new Agent[INITIAL_CAPACITY];
+    private byte[] faction = new byte[INITIAL_CAPACITY];
+    private float[] x = new float[INITIAL_CAPACITY];
+    private float[] y = new float[INITIAL_CAPACITY];
+    private float[] health = new float[INITIAL_CAPACITY];
+    private int[] strength = new int[INITIAL_CAPACITY];
+    private int[] speedPoints = new int[INITIAL_CAPACITY];
+    private int[] vitality = new int[INITIAL_CAPACITY];
+    private int[] resourcesCollected = new int[INITIAL_CAPACITY];
+    private boolean[] dead = new boolean[INITIAL_CAPACITY];
+    private boolean[] multiplied = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * Reserva um slot para o agente, com atributos zerados.
+     * @return O slot atribuído.
+     */
+    int add(Agent agent) {
+        if (size == agents.length) {
+            grow();
+        }
+        int slot = size++;
+        int f = agent.getFaction();
+        agents[slot] = agent;
+        faction[slot] = (byte) f;
+        x[slot] = 0;
+        y[slot] = 0;
+        health[slot] = 0;
+        strength[slot] = 0;
+        speedPoints[slot] = 0;
+        vitality[slot] = 0;
+        resourcesCollected[slot] = 0;
+        dead[slot] = false;
+        multiplied[slot] = false;
+        aliveCount[f]++;
+        agent.slot = slot;
+        agent.id = nextId++;
+        return slot;
+    }
+
+    /**
+     * Marca o agente do slot como morto. O slot só é liberado em {@link AgentPool#releaseDead()}.
+     */
+    void markDead(int slot) {
+        if (!dead[slot]) {
+            dead[slot] = true;
+            aliveCount[faction[slot]]--;
+        }
+    }
+
+    /**
+     * Remove imediatamente o agente do slot (swap-remove). Não deve ser chamado durante a
+     * iteração de um tick; para mortes em combate use {@link #markDead(int)}.
+     */
+    public void remove(int slot) {
+        if (!dead[slot]) {
+            aliveCount[faction[slot]]--;
+        }
+        agents[slot].slot = -1;
+
+        int last = --size;
+        if (slot != last) {
+            agents[slot] = agents[last];
+            faction[slot] = faction[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            health[slot] = health[last];
+            strength[slot] = strength[last];
+            speedPoints[slot] = speedPoints[last];
+            vitality[slot] = vitality[last];
+            resourcesCollected[slot] = resourcesCollected[last];
+            dead[slot] = dead[last];
+            multiplied[slot] = multiplied[last];
+            agents[slot].slot = slot;
+        }
+        agents[last] = null;
+    }
+
+    /**
+     * Recomeça a numeração dos ids dos agentes (usado no reset, com o store vazio).
+     */
+    public void resetIds() {
+        nextId = 0;
+    }
+
+    int getNextId() { return nextId; }
+    void setNextId(int nextId) { this.nextId = nextId; }
+
+    /**
+     * Permite que todos os agentes vivos tentem multiplicar de novo.
+     */
+    public void clearMultiplied() {
+        Arrays.fill(multiplied, 0, size, false);
+    }
+
+    /**
+     * Procura o último slot de um agente vivo da facção, ou -1.
+     */
+    public int findLast(int factionId) {
+        for (int slot = size - 1; slot >= 0; slot--) {
+            if (faction[slot] == factionId && !dead[slot]) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public int size() { return size; }
+    public int getAliveCount(int factionId) { return aliveCount[factionId]; }
+
+    public Agent getAgent(int slot) { return agents[slot]; }
+    public int getFaction(int slot) { return faction[slot]; }
+    public float getX(int slot) { return x[slot]; }
+    public float getY(int slot) { return y[slot]; }
+    public float getHealth(int slot) { return health[slot]; }
+    public int getStrength(int slot) { return strength[slot]; }
+    public int getSpeedPoints(int slot) { return speedPoints[slot]; }
+    public int getVitality(int slot) { return vitality[slot]; }
+    public int getResourcesCollected(int slot) { return resourcesCollected[slot]; }
+    public boolean isDead(int slot) { return dead[slot]; }
+    public boolean hasMultiplied(int slot) { return multiplied[slot]; }
+
+    void setPosition(int slot, float px, float py) { x[slot] = px; y[slot] = py; }
+    void setHealth(int slot, float value) { health[slot] = value; }
+    void setStrength(int slot, int value) { strength[slot] = value; }
+    void setSpeedPoints(int slot, int value) { speedPoints[slot] = value; }
+    void setVitality(int slot, int value) { vitality[slot] = value; }
+    void setResourcesCollected(int slot, int value) { resourcesCollected[slot] = value; }
+    void setMultiplied(int slot, boolean value) { multiplied[slot] = value; }
+
+    private void grow() {
+        int newCapacity = agents.length * 2;
+        agents = Arrays.copyOf(agents, newCapacity);
+        faction = Arrays.copyOf(faction, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        health = Arrays.copyOf(health, newCapacity);
+        strength = Arrays.copyOf(strength, newCapacity);
+        speedPoints = Arrays.copyOf(speedPoints, newCapacity);
+        vitality = Arrays.copyOf(vitality, newCapacity);
+        resourcesCollected = Arrays.copyOf(resourcesCollected, newCapacity);
+        dead = Arrays.copyOf(dead, newCapacity);
+        multiplied = Arrays.copyOf(multiplied, newCapacity);
+    }
+}
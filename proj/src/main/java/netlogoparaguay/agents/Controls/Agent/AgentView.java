@@ -0,0 +1,46 @@
+package netlogoparaguay.agents.Controls.Agent;
+
+import com.jme3.material.Material;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+
+/**
+ * Representação visual de um {@link Agent} na cena do jMonkeyEngine.
+ * Não contém lógica: a cada frame apenas copia a posição do agente simulado.
+ * <p>
+ * A malha e o material são compartilhados com os outros agentes da facção (ver
+ * {@link AgentVisuals}); anexada a um {@link com.jme3.scene.instancing.InstancedNode},
+ * a vista vira apenas uma instância (transformação) do desenho da facção.
+ */
+public class AgentView extends Geometry {
+
+    private final Agent agent;
+    // Posição desta vista na lista de quem a exibe, para remoção em O(1) (-1 = fora da lista)
+    private int viewIndex = -1;
+
+    AgentView(Agent agent, Mesh sharedMesh, Material sharedMaterial) {
+        super(agent.getName(), sharedMesh);
+        this.agent = agent;
+        setMaterial(sharedMaterial);
+        syncFromAgent();
+    }
+
+    /**
+     * Copia o estado do agente simulado para o Spatial.
+     */
+    public void syncFromAgent() {
+        setLocalTranslation(agent.getPosition());
+    }
+
+    public Agent getAgent() {
+        return agent;
+    }
+
+    public int getViewIndex() {
+        return viewIndex;
+    }
+
+    public void setViewIndex(int viewIndex) {
+        this.viewIndex = viewIndex;
+    }
+}
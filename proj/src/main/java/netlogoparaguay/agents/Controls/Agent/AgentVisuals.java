@@ -0,0 +1,88 @@
+package netlogoparaguay.agents.Controls.Agent;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+
+/**
+ * Malhas e materiais compartilhados pelos agentes, um material por facção e duas malhas
+ * (normal e de poucos triângulos, usada no modo de grande população).
+ * Todos os {@link AgentView} de uma facção usam o mesmo Mesh e o mesmo Material, com
+ * instancing ligado, para que o {@link com.jme3.scene.instancing.InstancedNode} os desenhe
+ * em uma única draw call por facção, qualquer que seja a população.
+ */
+public class AgentVisuals {
+
+    private static final int FACTION_COUNT = 2;
+
+    private final AssetManager assetManager;
+    private final Mesh[] meshes = new Mesh[FACTION_COUNT];
+    private final Mesh[] lowDetailMeshes = new Mesh[FACTION_COUNT];
+    private final Material[] materials = new Material[FACTION_COUNT];
+
+    public AgentVisuals(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    /**
+     * Cria a vista de um agente usando a malha e o material da sua facção.
+     */
+    public AgentView createView(Agent agent) {
+        return createView(agent, false);
+    }
+
+    /**
+     * @param lowDetail Se true, usa a malha de poucos triângulos (milhares de agentes na tela).
+     */
+    public AgentView createView(Agent agent, boolean lowDetail) {
+        int faction = agent.getFaction();
+        Mesh mesh = lowDetail ? getLowDetailMesh(faction) : getMesh(faction);
+        return new AgentView(agent, mesh, getMaterial(faction));
+    }
+
+    private Mesh getMesh(int faction) {
+        if (meshes[faction] == null) {
+            if (faction == AgentStore.GUARANI) {
+                // Modelo 3D simples (esfera verde)
+                meshes[faction] = new Sphere(32, 32, 0.5f);
+            } else {
+                // Modelo 3D simples (cubo vermelho)
+                meshes[faction] = new Box(0.5f, 0.5f, 0.5f);
+            }
+        }
+        return meshes[faction];
+    }
+
+    private Mesh getLowDetailMesh(int faction) {
+        if (lowDetailMeshes[faction] == null) {
+            if (faction == AgentStore.GUARANI) {
+                lowDetailMeshes[faction] = new Sphere(4, 6, 0.25f);
+            } else {
+                lowDetailMeshes[faction] = new Box(0.25f, 0.25f, 0.25f);
+            }
+        }
+        return lowDetailMeshes[faction];
+    }
+
+    private Material getMaterial(int faction) {
+        if (materials[faction] == null) {
+            try {
+                Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+                if (faction == AgentStore.GUARANI) {
+                    mat.setColor("Color", new ColorRGBA(0.2f, 0.8f, 0.3f, 1));
+                } else {
+                    mat.setColor("Color", new ColorRGBA(0.8f, 0.2f, 0.2f, 1));
+                }
+                mat.setBoolean("UseInstancing", true);
+                materials[faction] = mat;
+            } catch (Exception e) {
+                System.err.println("Erro crítico ao criar material da facção " + faction + ": " + e.getMessage());
+                throw new RuntimeException("Falha ao inicializar material dos agentes", e);
+            }
+        }
+        return materials[faction];
+    }
+}
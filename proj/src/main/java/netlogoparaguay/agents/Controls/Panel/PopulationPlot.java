@@ -0,0 +1,143 @@
+package netlogoparaguay.agents.Controls.Panel;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Quad;
+import com.jme3.util.BufferUtils;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Gráfico "população ao longo do tempo" do HUD, no estilo do plot do NetLogo.
+ *
+ * Cada facção é uma única malha de linhas sobre um ring buffer de {@code capacity} vértices:
+ * cada amostra sobrescreve um vértice e dois índices (o segmento que ligaria a amostra mais
+ * nova à mais antiga fica degenerado). Os vértices guardam os valores crus (número da amostra,
+ * população); a rolagem e a escala vertical automática são só a transformação do nó, então
+ * nenhuma geometria é reconstruída.
+ */
+public class PopulationPlot extends Node {
+
+    public static final int DEFAULT_CAPACITY = 300;
+    // Escala mínima do eixo Y, para populações pequenas não ocuparem o gráfico inteiro
+    private static final float MIN_Y_RANGE = 10f;
+
+    private final float width;
+    private final float height;
+    private final int capacity;
+    private final Node seriesNode = new Node("PopulationPlot_Series");
+    private final Series[] series;
+
+    // Amostras desde o último clear(); o vértice da amostra k fica no slot k % capacity
+    private long sampleCount = 0;
+    private float maxValue = MIN_Y_RANGE;
+
+    private static final class Series {
+        final Mesh mesh = new Mesh();
+        final FloatBuffer positions;
+        final IntBuffer indices;
+
+        Series(int capacity) {
+            positions = BufferUtils.createFloatBuffer(capacity * 3);
+            indices = BufferUtils.createIntBuffer(capacity * 2);
+            mesh.setMode(Mesh.Mode.Lines);
+            mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+            mesh.setBuffer(VertexBuffer.Type.Index, 2, indices);
+            mesh.updateCounts();
+        }
+    }
+
+    /**
+     * @param capacity Quantas amostras cabem na largura do gráfico.
+     * @param firstColor Cor da primeira série de {@link #append}; secondColor, da segunda.
+     */
+    public PopulationPlot(AssetManager assetManager, float width, float height, int capacity,
+                          ColorRGBA firstColor, ColorRGBA secondColor) {
+        super("PopulationPlot");
+        this.width = width;
+        this.height = height;
+        this.capacity = Math.max(2, capacity);
+
+        Geometry background = new Geometry("PopulationPlot_Background", new Quad(width, height));
+        Material bgMat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        bgMat.setColor("Color", new ColorRGBA(1, 1, 1, 0.08f));
+        bgMat.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Alpha);
+        background.setMaterial(bgMat);
+        attachChild(background);
+
+        ColorRGBA[] colors = {firstColor, secondColor};
+        series = new Series[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            series[i] = new Series(this.capacity);
+            Geometry line = new Geometry("PopulationPlot_Line" + i, series[i].mesh);
+            Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            mat.setColor("Color", colors[i]);
+            mat.getAdditionalRenderState().setLineWidth(2f);
+            line.setMaterial(mat);
+            seriesNode.attachChild(line);
+        }
+        // Acima do fundo; os limites da malha mudam a cada amostra, então não vale recalculá-los para culling
+        seriesNode.setLocalTranslation(0, 0, 1);
+        attachChild(seriesNode);
+        setCullHint(CullHint.Never);
+        clear();
+    }
+
+    /**
+     * Acrescenta uma amostra das duas séries.
+     */
+    public void append(float first, float second) {
+        int slot = (int) (sampleCount % capacity);
+        int previous = (slot - 1 + capacity) % capacity;
+        for (int i = 0; i < series.length; i++) {
+            Series s = series[i];
+            float value = i == 0 ? first : second;
+            s.positions.put(slot * 3, sampleCount).put(slot * 3 + 1, value).put(slot * 3 + 2, 0f);
+            if (sampleCount > 0) {
+                // Liga a amostra anterior a esta...
+                s.indices.put(previous * 2, previous).put(previous * 2 + 1, slot);
+            }
+            // ...e desfaz a ligação desta com o slot seguinte, que agora é o mais antigo
+            s.indices.put(slot * 2, slot).put(slot * 2 + 1, slot);
+            s.mesh.getBuffer(VertexBuffer.Type.Position).updateData(s.positions);
+            s.mesh.getBuffer(VertexBuffer.Type.Index).updateData(s.indices);
+            maxValue = Math.max(maxValue, value);
+        }
+        sampleCount++;
+        updateTransform();
+    }
+
+    /**
+     * Apaga o gráfico (ex.: no reset da simulação).
+     */
+    public void clear() {
+        for (Series s : series) {
+            for (int k = 0; k < capacity; k++) {
+                s.indices.put(k * 2, k).put(k * 2 + 1, k);
+                s.positions.put(k * 3, 0f).put(k * 3 + 1, 0f).put(k * 3 + 2, 0f);
+            }
+            s.mesh.getBuffer(VertexBuffer.Type.Position).updateData(s.positions);
+            s.mesh.getBuffer(VertexBuffer.Type.Index).updateData(s.indices);
+        }
+        sampleCount = 0;
+        maxValue = MIN_Y_RANGE;
+        updateTransform();
+    }
+
+    private void updateTransform() {
+        float scaleX = width / (capacity - 1);
+        float scaleY = height / maxValue;
+        long oldest = Math.max(0, sampleCount - capacity);
+        seriesNode.setLocalScale(scaleX, scaleY, 1f);
+        seriesNode.setLocalTranslation(-oldest * scaleX, 0, 1);
+    }
+
+    public long getSampleCount() { return sampleCount; }
+    public float getMaxValue() { return maxValue; }
+}
@@ -0,0 +1,149 @@
+package netlogoparaguay.agents.Controls.Panel;
+
+import com.jme3.app.Application;
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.BaseAppState;
+import com.jme3.font.BitmapFont;
+import com.jme3.font.BitmapText;
+import com.jme3.input.InputManager;
+import com.jme3.input.KeyInput;
+import com.jme3.input.controls.ActionListener;
+import com.jme3.input.controls.KeyTrigger;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.RenderManager;
+import java.util.Locale;
+import netlogoparaguay.simulation.SimulationEngine;
+import netlogoparaguay.simulation.TickProfiler;
+import netlogoparaguay.simulation.TickProfiler.Phase;
+import netlogoparaguay.utils.LatencyHistogram;
+
+/**
+ * Sobreposição com o tempo de cada fase do tick e do frame (p50/p99 e memória alocada
+ * por ocorrência), ligada e desligada com F3. Enquanto está escondida, nenhum profiler
+ * fica registrado no motor, então a medição não custa nada.
+ *
+ * As fases do frame que não passam pelo motor são medidas aqui: "atualização do grafo"
+ * vai do fim do update dos estados até o render, e "renderização" do render até o
+ * postRender. Para isso este estado deve ser anexado por último.
+ */
+public class ProfilerOverlay extends BaseAppState implements ActionListener {
+
+    private static final String MAPPING_TOGGLE = "Profiler_Toggle";
+    // Janela de medição: os percentis exibidos são dos últimos REFRESH_SECONDS
+    private static final float REFRESH_SECONDS = 1f;
+
+    private final SimulationEngine engine;
+    private final TickProfiler profiler = new TickProfiler();
+    private final StringBuilder sb = new StringBuilder(1024);
+
+    private SimpleApplication app;
+    private BitmapText text;
+    private boolean visible = false;
+    private float timeSinceRefresh = 0f;
+    private long updateEnd;
+    private long renderStart;
+
+    public ProfilerOverlay(SimulationEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    protected void initialize(Application app) {
+        this.app = (SimpleApplication) app;
+        BitmapFont font = app.getAssetManager().loadFont("Interface/Fonts/Default.fnt");
+        text = new BitmapText(font);
+        text.setSize(font.getCharSet().getRenderedSize() * 0.8f);
+        text.setColor(ColorRGBA.Yellow);
+        text.setText("Profiler: aguardando medições...");
+    }
+
+    @Override
+    protected void cleanup(Application app) { }
+
+    @Override
+    protected void onEnable() {
+        InputManager input = app.getInputManager();
+        input.addMapping(MAPPING_TOGGLE, new KeyTrigger(KeyInput.KEY_F3));
+        input.addListener(this, MAPPING_TOGGLE);
+    }
+
+    @Override
+    protected void onDisable() {
+        setVisible(false);
+        InputManager input = app.getInputManager();
+        if (input.hasMapping(MAPPING_TOGGLE)) input.deleteMapping(MAPPING_TOGGLE);
+        input.removeListener(this);
+    }
+
+    @Override
+    public void onAction(String name, boolean isPressed, float tpf) {
+        if (MAPPING_TOGGLE.equals(name) && !isPressed) {
+            setVisible(!visible);
+        }
+    }
+
+    public void setVisible(boolean visible) {
+        if (this.visible == visible) return;
+        this.visible = visible;
+        if (visible) {
+            profiler.reset();
+            timeSinceRefresh = 0f;
+            updateEnd = 0L;
+            renderStart = 0L;
+            engine.setProfiler(profiler);
+            text.setLocalTranslation(10f, app.getCamera().getHeight() - 10f, 0f);
+            app.getGuiNode().attachChild(text);
+        } else {
+            engine.setProfiler(null);
+            text.removeFromParent();
+        }
+    }
+
+    public boolean isVisible() { return visible; }
+
+    @Override
+    public void update(float tpf) {
+        if (!visible) return;
+        timeSinceRefresh += tpf;
+        if (timeSinceRefresh >= REFRESH_SECONDS) {
+            text.setText(format());
+            profiler.reset();
+            timeSinceRefresh = 0f;
+        }
+        updateEnd = System.nanoTime();
+    }
+
+    @Override
+    public void render(RenderManager rm) {
+        if (!visible) return;
+        renderStart = System.nanoTime();
+        if (updateEnd != 0L) profiler.record(Phase.SCENE_GRAPH, renderStart - updateEnd);
+    }
+
+    @Override
+    public void postRender() {
+        if (!visible || renderStart == 0L) return;
+        profiler.record(Phase.RENDER, System.nanoTime() - renderStart);
+    }
+
+    private String format() {
+        sb.setLength(0);
+        sb.append("Profiler (F3 esconde) - p50 / p99 por ocorrência\n");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram h = profiler.getHistogram(phase);
+            sb.append(phase.getLabel()).append(": ");
+            if (h.getCount() == 0) {
+                sb.append("-\n");
+                continue;
+            }
+            sb.append(String.format(Locale.ROOT, "%.3f / %.3f ms (%dx)",
+                    h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.getCount()));
+            // Grafo e render são medidos por fora, sem contagem de memória
+            if (profiler.isMeasuringAllocation() && phase != Phase.SCENE_GRAPH && phase != Phase.RENDER) {
+                sb.append(String.format(Locale.ROOT, ", %.1f KB", profiler.getMeanAllocatedBytes(phase) / 1024.0));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
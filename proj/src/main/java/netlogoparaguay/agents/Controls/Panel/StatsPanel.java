@@ -14,6 +14,7 @@ public class StatsPanel extends Node {
     private BitmapText jesuitStats;
     private BitmapText loopStats;
     private BitmapText winnerText;
+    private PopulationPlot populationPlot;
 
     public StatsPanel(Application app) {
         super("StatsPanel");
@@ -41,6 +42,18 @@ public class StatsPanel extends Node {
         loopStats = createStatText(font, "Loops: 0/0", 10, -150);
         winnerText = createStatText(font, "Vencedor: -", 10, -190);
         winnerText.setColor(ColorRGBA.Yellow);
+
+        // Gráfico de população (verde: Guaranis, vermelho: Jesuítas)
+        BitmapText plotTitle = createStatText(font, "População", 10, -205);
+        plotTitle.setSize(16);
+        populationPlot = new PopulationPlot(app.getAssetManager(), 280, 70, PopulationPlot.DEFAULT_CAPACITY,
+                new ColorRGBA(0.2f, 0.8f, 0.3f, 1), new ColorRGBA(0.8f, 0.2f, 0.2f, 1));
+        populationPlot.setLocalTranslation(10, -300, 0);
+        attachChild(populationPlot);
+    }
+
+    public PopulationPlot getPopulationPlot() {
+        return populationPlot;
     }
 
     private BitmapText createStatText(BitmapFont font, String text, float x, float y) {
@@ -2,13 +2,26 @@ package netlogoparaguay.agents.Controls.Panel;
 
 import com.jme3.app.Application;
 import com.jme3.app.state.BaseAppState;
+import netlogoparaguay.simulation.MetricsRecorder;
+import netlogoparaguay.simulation.MetricsRecorder.Metric;
 import netlogoparaguay.simulation.SimulationAppState;
 
+/**
+ * Atualiza o {@link StatsPanel} a cada meio segundo com a linha mais recente do
+ * {@link MetricsRecorder} (que guarda a série completa, tick a tick), e a cada frame
+ * acrescenta ao gráfico de população as amostras dos ticks novos.
+ */
 public class StatsUpdater extends BaseAppState {
     private final StatsPanel statsPanel;
     private final SimulationAppState simulation; // Referência ao estado da UI
     private float timeSinceLastUpdate = 0;
 
+    // Uma amostra do gráfico a cada PLOT_SAMPLE_TICKS ticks (300 amostras = 3000 ticks na largura)
+    private static final int PLOT_SAMPLE_TICKS = 10;
+    private int lastPlottedLoop = -1;
+    // Reset do MetricsRecorder a que o gráfico corresponde
+    private int plottedResetCount = -1;
+
     public StatsUpdater(StatsPanel statsPanel, SimulationAppState simulation) {
         this.statsPanel = statsPanel;
         this.simulation = simulation;
@@ -16,21 +29,63 @@ public class StatsUpdater extends BaseAppState {
 
     @Override
     public void update(float tpf) {
+        updatePlot();
         timeSinceLastUpdate += tpf;
         if (timeSinceLastUpdate > 0.5f) {
             if (simulation != null && statsPanel != null && simulation.isEnabled() && isEnabled()) {
-                statsPanel.updateStats(
-                        simulation.getCurrentGuaraniCount(),
-                        simulation.getCurrentJesuitCount(),
-                        simulation.getCurrentLoop(),
-                        simulation.getMaxLoopsSetting(), // CORRIGIDO: Usar getMaxLoopsSetting()
-                        simulation.getWinner()
-                );
+                MetricsRecorder metrics = simulation.getMetrics();
+                if (metrics != null) {
+                    // Inclui as mudanças feitas com a simulação pausada (reset, adicionar/remover)
+                    metrics.refresh();
+                    statsPanel.updateStats(
+                            metrics.latestInt(Metric.GUARANIS),
+                            metrics.latestInt(Metric.JESUITS),
+                            metrics.latestInt(Metric.LOOP),
+                            simulation.getMaxLoopsSetting(),
+                            simulation.getWinner()
+                    );
+                } else {
+                    statsPanel.updateStats(
+                            simulation.getCurrentGuaraniCount(),
+                            simulation.getCurrentJesuitCount(),
+                            simulation.getCurrentLoop(),
+                            simulation.getMaxLoopsSetting(), // CORRIGIDO: Usar getMaxLoopsSetting()
+                            simulation.getWinner()
+                    );
+                }
             }
             timeSinceLastUpdate = 0;
         }
     }
 
+    private void updatePlot() {
+        if (simulation == null || statsPanel == null || statsPanel.getPopulationPlot() == null) return;
+        MetricsRecorder metrics = simulation.getMetrics();
+        if (metrics == null) return;
+        PopulationPlot plot = statsPanel.getPopulationPlot();
+
+        int n = metrics.size();
+        if (n == 0) return;
+        if (metrics.getResetCount() != plottedResetCount) {
+            // Nova simulação: recomeça o gráfico (mesmo que ela já esteja num loop além do último plotado)
+            plot.clear();
+            lastPlottedLoop = -1;
+            plottedResetCount = metrics.getResetCount();
+        }
+        // Só as linhas dos ticks que ainda não foram vistos (normalmente poucas por frame)
+        int first = n;
+        while (first > 0 && metrics.intAt(Metric.LOOP, first - 1) > lastPlottedLoop) {
+            first--;
+        }
+        for (int i = first; i < n; i++) {
+            int loop = metrics.intAt(Metric.LOOP, i);
+            if (loop % PLOT_SAMPLE_TICKS == 0) {
+                plot.append(metrics.intAt(Metric.GUARANIS, i), metrics.intAt(Metric.JESUITS, i));
+            }
+            lastPlottedLoop = loop;
+        }
+    }
+
     @Override
     protected void initialize(Application app) {
         // Lógica de inicialização, se necessário
@@ -2,19 +2,28 @@ package netlogoparaguay.agents.Controls.controller;
 
 import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
-import com.jme3.renderer.RenderManager;
-import com.jme3.renderer.ViewPort;
-import com.jme3.scene.Spatial;
-import com.jme3.scene.control.AbstractControl;
-import java.util.List;
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 import netlogoparaguay.agents.Controls.Agent.Agent;
 import netlogoparaguay.resources.Resource;
 import netlogoparaguay.resources.ResourceManager;
-import netlogoparaguay.simulation.SimulationAppState;
-import netlogoparaguay.simulation.SimulationAppStates;
-
-public abstract class AgentControl extends AbstractControl {
+import netlogoparaguay.simulation.SimulationEngine;
+import netlogoparaguay.utils.SimulationRandom;
+import netlogoparaguay.utils.SnapshotBuffer;
+
+/**
+ * Comportamento (máquina de estados) de um agente.
+ * É executado pelo {@link SimulationEngine} a cada tick, sem depender do loop de
+ * renderização do jMonkeyEngine, em duas fases:
+ * <ul>
+ *   <li>{@link #sense(float)}: só lê o mundo e decide o próximo estado. Pode rodar em
+ *       paralelo para todos os agentes, pois escreve apenas nos campos deste controle.</li>
+ *   <li>{@link #act(float)}: executa o estado decidido (movimento, ataque, coleta,
+ *       multiplicação). Roda em série, na ordem dos slots.</li>
+ * </ul>
+ */
+public abstract class AgentControl {
 
     // MODIFICAÇÃO: Adicionado o estado FLEEING
     protected enum AgentState {
@@ -22,7 +31,7 @@ public abstract class AgentControl extends AbstractControl {
     }
 
     protected Agent agent;
-    protected SimulationAppStates simulationManager;
+    protected SimulationEngine simulationManager;
     protected ResourceManager resourceManager;
 
     protected float baseSpeed = 2.0f;
@@ -40,37 +49,134 @@ public abstract class AgentControl extends AbstractControl {
     protected Resource currentResourceTarget;
     protected float collectionRange = 1.0f;
 
-    protected float visionRadius = 10.0f;
-    public static final float WORLD_BOUNDS = 30f;
+    // Também define o tamanho das células dos índices espaciais em SimulationAppStates
+    public static final float DEFAULT_VISION_RADIUS = 10.0f;
+    protected float visionRadius = DEFAULT_VISION_RADIUS;
+    // Tamanho do mundo do motor do agente (definido em setAgent)
+    protected float worldWidth = SimulationEngine.DEFAULT_AREA_WIDTH;
+    protected float worldHeight = SimulationEngine.DEFAULT_AREA_HEIGHT;
 
     protected static final float TARGET_REACHED_THRESHOLD = 0.5f;
     protected AgentState currentState = AgentState.IDLE;
 
-    private Random random;
+    // Fluxo aleatório próprio do agente, derivado da semente da simulação (ver SimulationEngine.reset)
+    private SimulationRandom random;
+
+    // Filtro usado nas consultas aos índices espaciais (sem captura, portanto sem alocação)
+    protected static final Predicate<Agent> IS_ALIVE = a -> !a.isDead();
 
     public AgentControl() {
     }
 
-    @Override
-    public void setSpatial(Spatial spatial) {
-        super.setSpatial(spatial);
-        if (spatial instanceof Agent) {
-            this.agent = (Agent) spatial;
-            this.simulationManager = this.agent.getSimulationManager();
-            if (this.simulationManager != null) {
-                this.random = this.simulationManager.random;
-                this.resourceManager = this.simulationManager.getResourceManager();
-                if (this.resourceManager == null) {
-                    System.err.println("ERRO CRÍTICO: ResourceManager é NULO em AgentControl para " + this.agent.getName() + ". Recursos não funcionarão.");
-                }
-            } else {
-                System.err.println("ERRO: SimulationManager não foi definido no Agente " + this.agent.getName() + " para o AgentControl.");
+    public void setAgent(Agent agent) {
+        this.agent = agent;
+        this.simulationManager = agent.getSimulationManager();
+        if (this.simulationManager != null) {
+            this.worldWidth = this.simulationManager.getAreaWidth();
+            this.worldHeight = this.simulationManager.getAreaHeight();
+            this.resourceManager = this.simulationManager.getResourceManager();
+            if (this.resourceManager == null) {
+                System.err.println("ERRO CRÍTICO: ResourceManager é NULO em AgentControl para " + this.agent.getName() + ". Recursos não funcionarão.");
             }
-            updateEffectiveSpeed();
         } else {
-            throw new IllegalStateException("AgentControl só pode ser adicionado a um Spatial do tipo Agent.");
+            System.err.println("ERRO: SimulationManager não foi definido no Agente " + this.agent.getName() + " para o AgentControl.");
+        }
+        updateEffectiveSpeed();
+    }
+
+    /**
+     * Volta o controle ao estado inicial (IDLE, sem alvos nem temporizadores), como
+     * recém-criado. Usado quando o agente é reciclado pelo pool.
+     */
+    public void resetState() {
+        currentState = AgentState.IDLE;
+        currentMoveTarget = null;
+        currentEnemyTarget = null;
+        currentResourceTarget = null;
+        directionChangeTimer = 0f;
+        currentAttackCooldown = 0f;
+        updateEffectiveSpeed();
+    }
+
+    /**
+     * Aplica os parâmetros ajustáveis do comportamento (velocidade, alcance e recarga do
+     * ataque, visão). O motor chama a cada vez que o agente é colocado no mundo.
+     */
+    public void applyTuning(ControlTuning tuning) {
+        this.baseSpeed = tuning.getBaseSpeed();
+        this.attackRange = tuning.getAttackRange();
+        this.attackCooldownBase = tuning.getAttackCooldownBase();
+        this.visionRadius = tuning.getVisionRadius();
+        updateEffectiveSpeed();
+    }
+
+    public void setRandom(SimulationRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Grava o estado do comportamento (estado atual, alvos por id, temporizadores e o fluxo
+     * aleatório) em um checkpoint. Alvos mortos são gravados como ausentes.
+     */
+    public void writeState(SnapshotBuffer out) {
+        out.putByte(currentState.ordinal());
+        out.putBoolean(currentMoveTarget != null);
+        if (currentMoveTarget != null) {
+            out.putFloat(currentMoveTarget.x).putFloat(currentMoveTarget.y).putFloat(currentMoveTarget.z);
+        }
+        out.putFloat(directionChangeTimer);
+        out.putFloat(currentAttackCooldown);
+        out.putInt(currentEnemyTarget != null && !currentEnemyTarget.isDead() ? currentEnemyTarget.getId() : -1);
+        out.putInt(currentResourceTarget != null && currentResourceTarget.isAvailable() ? currentResourceTarget.getId() : -1);
+        random.writeState(out);
+    }
+
+    /**
+     * Restaura o estado gravado por {@link #writeState}. Os agentes e recursos do checkpoint
+     * já devem estar restaurados, para que os alvos possam ser resolvidos pelos ids.
+     * @param agentsById Resolve o id de um agente restaurado (null se não existir).
+     */
+    public void readState(ByteBuffer in, IntFunction<Agent> agentsById) {
+        currentState = AgentState.values()[in.get()];
+        if (SnapshotBuffer.getBoolean(in)) {
+            currentMoveTarget = new Vector3f(in.getFloat(), in.getFloat(), in.getFloat());
+        } else {
+            currentMoveTarget = null;
         }
+        directionChangeTimer = in.getFloat();
+        currentAttackCooldown = in.getFloat();
+        int enemyId = in.getInt();
+        currentEnemyTarget = enemyId >= 0 ? agentsById.apply(enemyId) : null;
+        int resourceId = in.getInt();
+        currentResourceTarget = resourceId >= 0 && resourceManager != null ? resourceManager.getResourceById(resourceId) : null;
+        random = SimulationRandom.readState(in);
+        updateEffectiveSpeed();
     }
+
+    /**
+     * Confere, sem alterar nada, se os dados a seguir são um estado válido de {@link #writeState}
+     * e avança {@code in} até o fim dele. Alvos por id não são conferidos: ids desconhecidos
+     * são restaurados como "sem alvo".
+     * @throws IllegalArgumentException se o estado gravado não existir.
+     * @throws java.nio.BufferUnderflowException se os dados acabarem antes do fim.
+     */
+    public static void validateState(ByteBuffer in) {
+        int state = in.get();
+        if (state < 0 || state >= AgentState.values().length) {
+            throw new IllegalArgumentException("Estado de agente inválido: " + state);
+        }
+        if (SnapshotBuffer.getBoolean(in)) {
+            in.getFloat();
+            in.getFloat();
+            in.getFloat();
+        }
+        in.getFloat();
+        in.getFloat();
+        in.getInt();
+        in.getInt();
+        SimulationRandom.readState(in);
+    }
+
     public void updateEffectiveSpeed() {
         if (agent != null) {
             this.effectiveSpeed = this.baseSpeed * (1 + agent.getSpeedPoints() * 0.05f);
@@ -79,9 +185,23 @@ public abstract class AgentControl extends AbstractControl {
         }
     }
 
-    @Override
-    protected void controlUpdate(float tpf) {
-        if (agent == null || agent.isDead() || !isEnabled() || simulationManager == null) {
+    /**
+     * Executa um tick completo (as duas fases) do comportamento do agente.
+     * @param effectiveTpf O passo de tempo fixo do tick da simulação.
+     */
+    public void update(float effectiveTpf) {
+        sense(effectiveTpf);
+        act(effectiveTpf);
+    }
+
+    /**
+     * Fase 1: atualiza os temporizadores e decide o próximo estado.
+     * Não altera nada fora deste controle, então é seguro chamar em paralelo
+     * para agentes diferentes enquanto nenhum agente estiver em {@link #act(float)}.
+     * @param effectiveTpf O passo de tempo fixo do tick da simulação.
+     */
+    public void sense(float effectiveTpf) {
+        if (agent == null || agent.isDead() || simulationManager == null) {
             return;
         }
 
@@ -89,18 +209,6 @@ public abstract class AgentControl extends AbstractControl {
             currentState = AgentState.IDLE;
         }
 
-
-        float currentSimSpeed = 1.0f;
-        SimulationAppState uiState = simulationManager.getUiAppStateReference();
-        if (uiState != null) {
-            currentSimSpeed = uiState.getSimulationSpeed();
-            if (uiState.isPaused()) {
-                return;
-            }
-        }
-
-        float effectiveTpf = tpf * currentSimSpeed;
-
         if (currentAttackCooldown > 0) {
             currentAttackCooldown -= effectiveTpf;
         }
@@ -109,6 +217,18 @@ public abstract class AgentControl extends AbstractControl {
         }
 
         decideNextState();
+    }
+
+    /**
+     * Fase 2: executa o estado decidido em {@link #sense(float)}.
+     * Como roda depois das decisões de todos os agentes, os handlers revalidam os alvos
+     * (inimigo pode ter morrido, recurso pode ter sido coletado por outro agente).
+     * @param effectiveTpf O passo de tempo fixo do tick da simulação.
+     */
+    public void act(float effectiveTpf) {
+        if (agent == null || agent.isDead() || simulationManager == null) {
+            return;
+        }
 
         // MODIFICAÇÃO: Adicionado o case para o novo estado FLEEING
         switch (currentState) {
@@ -135,10 +255,14 @@ public abstract class AgentControl extends AbstractControl {
         tryMultiply();
     }
 
+    /**
+     * Decide o próximo estado. Chamado na fase de leitura: use apenas consultas
+     * (getX/getY/distanceTo) e escreva só nos campos deste controle.
+     */
     protected void decideNextState() {
         currentEnemyTarget = findClosestEnemy();
         if (currentEnemyTarget != null && !currentEnemyTarget.isDead()) {
-            float distanceToEnemy = agent.getLocalTranslation().distance(currentEnemyTarget.getLocalTranslation());
+            float distanceToEnemy = agent.distanceTo(currentEnemyTarget);
             if (distanceToEnemy <= attackRange) {
                 currentState = AgentState.ATTACKING;
             } else {
@@ -156,7 +280,7 @@ public abstract class AgentControl extends AbstractControl {
 
             currentResourceTarget = findClosestAvailableResource();
             if (currentResourceTarget != null && currentResourceTarget.isAvailable()) {
-                float distanceToResource = agent.getLocalTranslation().distance(currentResourceTarget.getPosition());
+                float distanceToResource = agent.distanceTo(currentResourceTarget.getPosition());
                 if (distanceToResource <= collectionRange) {
                     currentState = AgentState.COLLECTING_RESOURCE;
                 } else {
@@ -171,11 +295,10 @@ public abstract class AgentControl extends AbstractControl {
 
     protected void handleIdle(float tpfForMovement) {
         if (directionChangeTimer <= 0 || currentMoveTarget == null ||
-                agent.getLocalTranslation().distance(currentMoveTarget) < TARGET_REACHED_THRESHOLD) {
-            float bounds = WORLD_BOUNDS;
+                agent.getPosition().distance(currentMoveTarget) < TARGET_REACHED_THRESHOLD) {
             currentMoveTarget = new Vector3f(
-                    (random.nextFloat() - 0.5f) * (bounds - 2f),
-                    (random.nextFloat() - 0.5f) * (bounds - 2f),
+                    (random.nextFloat() - 0.5f) * (worldWidth - 2f),
+                    (random.nextFloat() - 0.5f) * (worldHeight - 2f),
                     0
             );
             directionChangeTimer = MIN_WANDER_TIME + random.nextFloat() * (MAX_WANDER_TIME - MIN_WANDER_TIME);
@@ -191,7 +314,7 @@ public abstract class AgentControl extends AbstractControl {
             currentEnemyTarget = null;
             return;
         }
-        moveTo(currentEnemyTarget.getLocalTranslation(), tpfForMovement);
+        moveTo(currentEnemyTarget.getPosition(), tpfForMovement);
     }
 
     // MÉTODO NOVO: Lógica para fugir de um inimigo
@@ -203,8 +326,8 @@ public abstract class AgentControl extends AbstractControl {
         }
 
         // Calcula a direção oposta ao inimigo
-        Vector3f agentPos = agent.getLocalTranslation();
-        Vector3f enemyPos = currentEnemyTarget.getLocalTranslation();
+        Vector3f agentPos = agent.getPosition();
+        Vector3f enemyPos = currentEnemyTarget.getPosition();
         Vector3f directionAway = agentPos.subtract(enemyPos);
 
         // Define um ponto de fuga naquela direção
@@ -214,7 +337,7 @@ public abstract class AgentControl extends AbstractControl {
         moveTo(fleeTarget, tpfForMovement);
 
         // O agente para de fugir se o inimigo se afastar muito
-        if (agent.getLocalTranslation().distance(currentEnemyTarget.getLocalTranslation()) > visionRadius * 1.5f) {
+        if (agent.getPosition().distance(currentEnemyTarget.getPosition()) > visionRadius * 1.5f) {
             currentEnemyTarget = null;
             currentState = AgentState.IDLE;
         }
@@ -227,13 +350,13 @@ public abstract class AgentControl extends AbstractControl {
             currentEnemyTarget = null;
             return;
         }
-        if (agent.getLocalTranslation().distance(currentEnemyTarget.getLocalTranslation()) > attackRange * 1.1f) {
+        if (agent.getPosition().distance(currentEnemyTarget.getPosition()) > attackRange * 1.1f) {
             currentState = AgentState.SEEKING_ENEMY;
             return;
         }
         if (currentAttackCooldown <= 0) {
-            agent.lookAt(currentEnemyTarget.getLocalTranslation(), Vector3f.UNIT_Y);
             float damage = agent.getStrength() * 2.0f + 5.0f;
+            simulationManager.notifyAttack(agent, currentEnemyTarget, damage);
             currentEnemyTarget.takeDamage(damage);
             currentAttackCooldown = attackCooldownBase;
             if (currentEnemyTarget.isDead()) {
@@ -259,6 +382,7 @@ public abstract class AgentControl extends AbstractControl {
             return;
         }
         agent.collectResource(currentResourceTarget.getType());
+        simulationManager.notifyResourceCollected(agent, currentResourceTarget);
         resourceManager.notifyResourceCollected(currentResourceTarget);
         currentResourceTarget = null;
         currentState = AgentState.IDLE;
@@ -266,36 +390,24 @@ public abstract class AgentControl extends AbstractControl {
 
     protected void moveTo(Vector3f targetPosition, float tpfForMovement) {
         if (targetPosition == null || agent == null) return;
-        Vector3f agentPos = agent.getLocalTranslation();
+        Vector3f agentPos = agent.getPosition();
         Vector3f direction = targetPosition.subtract(agentPos);
         direction.setZ(0);
         if (direction.lengthSquared() > FastMath.FLT_EPSILON) {
             direction.normalizeLocal();
             Vector3f movement = direction.mult(effectiveSpeed * tpfForMovement);
             Vector3f nextPos = agentPos.add(movement);
-            float halfWidth = WORLD_BOUNDS / 2f - 0.5f;
+            float halfWidth = worldWidth / 2f - 0.5f;
+            float halfHeight = worldHeight / 2f - 0.5f;
             nextPos.x = FastMath.clamp(nextPos.x, -halfWidth, halfWidth);
-            nextPos.y = FastMath.clamp(nextPos.y, -halfWidth, halfWidth);
-            agent.setLocalTranslation(nextPos);
+            nextPos.y = FastMath.clamp(nextPos.y, -halfHeight, halfHeight);
+            agent.setPosition(nextPos);
         }
     }
 
     protected Resource findClosestAvailableResource() {
         if (resourceManager == null) return null;
-        List<Resource> availableResources = resourceManager.getAvailableResources();
-        if (availableResources == null || availableResources.isEmpty()) return null;
-        Resource closestResource = null;
-        float minDistanceSq = visionRadius * visionRadius;
-        for (Resource resource : availableResources) {
-            if (resource.isAvailable()) {
-                float distSq = agent.getLocalTranslation().distanceSquared(resource.getPosition());
-                if (distSq < minDistanceSq) {
-                    minDistanceSq = distSq;
-                    closestResource = resource;
-                }
-            }
-        }
-        return closestResource;
+        return resourceManager.findNearestAvailable(agent.getX(), agent.getY(), visionRadius, null);
     }
 
     protected void tryMultiply() {
@@ -308,7 +420,4 @@ public abstract class AgentControl extends AbstractControl {
     }
 
     protected abstract Agent findClosestEnemy();
-
-    @Override
-    protected void controlRender(RenderManager rm, ViewPort vp) {}
 }
\ No newline at end of file
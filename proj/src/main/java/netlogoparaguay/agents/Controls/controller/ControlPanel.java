@@ -34,13 +34,13 @@ public class ControlPanel extends Node {
         BitmapFont font = app.getAssetManager().loadFont("Interface/Fonts/Default.fnt");
 
         // Sliders para contagem de agentes
-        LabeledSlider guaraniSlider = new LabeledSlider("Guaranis:", simulation.getGuaraniCountSetting(), 1, 20, 200, 50, font);
+        LabeledSlider guaraniSlider = new LabeledSlider("Guaranis:", simulation.getGuaraniCountSetting(), 1, SimulationAppState.MAX_POPULATION_SETTING, 200, 50, font);
         guaraniSlider.setLocalTranslation(0, 0, 0); // Posição inicial no topo
         guaraniSlider.setValue(simulation.getGuaraniCountSetting());
         guaraniSlider.onChange(simulation::setGuaraniCount);
         attachChild(guaraniSlider);
 
-        LabeledSlider jesuitSlider = new LabeledSlider("Jesuitas:", simulation.getJesuitCountSetting(), 1, 20, 200, 50, font);
+        LabeledSlider jesuitSlider = new LabeledSlider("Jesuitas:", simulation.getJesuitCountSetting(), 1, SimulationAppState.MAX_POPULATION_SETTING, 200, 50, font);
         jesuitSlider.setLocalTranslation(0, -60, 0);
         jesuitSlider.setValue(simulation.getJesuitCountSetting());
         jesuitSlider.onChange(simulation::setJesuitCount);
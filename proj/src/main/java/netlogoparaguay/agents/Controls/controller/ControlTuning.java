@@ -0,0 +1,53 @@
+package netlogoparaguay.agents.Controls.controller;
+
+/**
+ * Parâmetros ajustáveis do comportamento de uma facção: velocidade base, alcance e recarga
+ * do ataque e raio de visão. Imutável; os valores padrão de cada facção ficam em
+ * {@link GuaraniControl#DEFAULT_TUNING} e {@link JesuitControl#DEFAULT_TUNING}, e o motor
+ * aplica a cada agente colocado no mundo o ajuste configurado para a facção dele.
+ */
+public final class ControlTuning {
+
+    private final float baseSpeed;
+    private final float attackRange;
+    private final float attackCooldownBase;
+    private final float visionRadius;
+
+    public ControlTuning(float baseSpeed, float attackRange, float attackCooldownBase, float visionRadius) {
+        if (baseSpeed < 0 || attackRange < 0 || attackCooldownBase < 0 || visionRadius <= 0) {
+            throw new IllegalArgumentException("Parâmetros de comportamento inválidos: velocidade " + baseSpeed
+                    + ", alcance " + attackRange + ", recarga " + attackCooldownBase + ", visão " + visionRadius);
+        }
+        this.baseSpeed = baseSpeed;
+        this.attackRange = attackRange;
+        this.attackCooldownBase = attackCooldownBase;
+        this.visionRadius = visionRadius;
+    }
+
+    public float getBaseSpeed() { return baseSpeed; }
+    public float getAttackRange() { return attackRange; }
+    public float getAttackCooldownBase() { return attackCooldownBase; }
+    public float getVisionRadius() { return visionRadius; }
+
+    public ControlTuning withBaseSpeed(float value) {
+        return new ControlTuning(value, attackRange, attackCooldownBase, visionRadius);
+    }
+
+    public ControlTuning withAttackRange(float value) {
+        return new ControlTuning(baseSpeed, value, attackCooldownBase, visionRadius);
+    }
+
+    public ControlTuning withAttackCooldownBase(float value) {
+        return new ControlTuning(baseSpeed, attackRange, value, visionRadius);
+    }
+
+    public ControlTuning withVisionRadius(float value) {
+        return new ControlTuning(baseSpeed, attackRange, attackCooldownBase, value);
+    }
+
+    @Override
+    public String toString() {
+        return "ControlTuning[velocidade=" + baseSpeed + ", alcance=" + attackRange
+                + ", recarga=" + attackCooldownBase + ", visão=" + visionRadius + "]";
+    }
+}
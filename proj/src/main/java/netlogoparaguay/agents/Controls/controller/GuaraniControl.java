@@ -1,18 +1,19 @@
 package netlogoparaguay.agents.Controls.controller;
 
-import java.util.List;
 import netlogoparaguay.agents.Controls.Agent.Agent;
 import netlogoparaguay.agents.Controls.Agent.Guarani;
 import netlogoparaguay.agents.Controls.Agent.Jesuit;
 import netlogoparaguay.resources.Resource;
+import netlogoparaguay.utils.DensityField;
+import netlogoparaguay.utils.SpatialGrid;
 
 public class GuaraniControl extends AgentControl {
 
+    public static final ControlTuning DEFAULT_TUNING = new ControlTuning(2.8f, 1.6f, 1.8f, DEFAULT_VISION_RADIUS);
+
     public GuaraniControl() {
         super();
-        this.baseSpeed = 2.8f;
-        this.attackRange = 1.6f;
-        this.attackCooldownBase = 1.8f;
+        applyTuning(DEFAULT_TUNING);
     }
 
     @Override
@@ -21,24 +22,31 @@ public class GuaraniControl extends AgentControl {
             return null;
         }
 
-        List<Jesuit> jesuits = simulationManager.getJesuits();
-        if (jesuits == null || jesuits.isEmpty()) {
+        SpatialGrid<Jesuit> jesuitGrid = simulationManager.getJesuitGrid();
+        if (jesuitGrid == null || jesuitGrid.size() == 0) {
             return null;
         }
 
-        Agent closestEnemy = null;
-        float minDistanceSq = visionRadius * visionRadius;
+        return jesuitGrid.findNearest(agent.getX(), agent.getY(), visionRadius, null, IS_ALIVE);
+    }
 
-        for (Jesuit jesuit : jesuits) {
-            if (jesuit != null && !jesuit.isDead()) {
-                float distSq = agent.getLocalTranslation().distanceSquared(jesuit.getLocalTranslation());
-                if (distSq < minDistanceSq) {
-                    minDistanceSq = distSq;
-                    closestEnemy = jesuit;
-                }
-            }
+    /**
+     * Diz se há outro guarani vivo a menos de {@code radius}. O campo de densidade da facção
+     * (que inclui o próprio agente) costuma decidir em O(1): mais de um guarani no quadrado
+     * inscrito garante um aliado, e no máximo um no quadrado circunscrito garante que não há.
+     * Só no caso intermediário a busca exata no índice espacial é feita.
+     */
+    private boolean hasAllyWithin(float radius) {
+        float x = agent.getX(), y = agent.getY();
+        DensityField allies = simulationManager.getGuaraniDensity();
+        if (allies.lowerBound(x, y, radius) > 1) {
+            return true;
         }
-        return closestEnemy;
+        if (allies.upperBound(x, y, radius) <= 1) {
+            return false;
+        }
+        // Sem contar a si mesmo, e para no primeiro aliado encontrado
+        return simulationManager.getGuaraniGrid().anyWithin(x, y, radius, (Guarani) agent, IS_ALIVE);
     }
 
     /**
@@ -53,26 +61,16 @@ public class GuaraniControl extends AgentControl {
         // 2. Se um inimigo foi encontrado, decida entre lutar ou fugir.
         if (currentEnemyTarget != null && !currentEnemyTarget.isDead()) {
 
-            // 2a. Conte quantos Guaranis aliados estão por perto.
-            int alliesNearby = 0;
+            // 2a. Verifique se há algum Guarani aliado por perto.
+            boolean hasAllyNearby = false;
             if (simulationManager != null) {
-                // Pega a lista de todos os guaranis da simulação
-                List<Guarani> allGuaranis = simulationManager.getGuaranis();
-                for (Guarani otherGuarani : allGuaranis) {
-                    if (otherGuarani == this.agent) {
-                        continue; // Não conte a si mesmo
-                    }
-                    // Se outro guarani estiver dentro do raio de visão, conte como aliado próximo
-                    if (this.agent.getLocalTranslation().distanceSquared(otherGuarani.getLocalTranslation()) < visionRadius * visionRadius) {
-                        alliesNearby++;
-                    }
-                }
+                hasAllyNearby = hasAllyWithin(visionRadius);
             }
 
-            // 2b. Tome a decisão com base no número de aliados.
-            if (alliesNearby >= 1) {
+            // 2b. Tome a decisão com base na presença de aliados.
+            if (hasAllyNearby) {
                 // SE TEM AJUDA: Comporte-se normalmente (atacar ou perseguir)
-                float distanceToEnemy = agent.getLocalTranslation().distance(currentEnemyTarget.getLocalTranslation());
+                float distanceToEnemy = agent.distanceTo(currentEnemyTarget);
                 if (distanceToEnemy <= attackRange) {
                     currentState = AgentState.ATTACKING;
                 } else {
@@ -97,7 +95,7 @@ public class GuaraniControl extends AgentControl {
 
             currentResourceTarget = findClosestAvailableResource();
             if (currentResourceTarget != null && currentResourceTarget.isAvailable()) {
-                float distanceToResource = agent.getLocalTranslation().distance(currentResourceTarget.getPosition());
+                float distanceToResource = agent.distanceTo(currentResourceTarget.getPosition());
                 if (distanceToResource <= collectionRange) {
                     currentState = AgentState.COLLECTING_RESOURCE;
                 } else {
@@ -1,21 +1,18 @@
 package netlogoparaguay.agents.Controls.controller;
 
-import java.util.List;
 import netlogoparaguay.agents.Controls.Agent.Agent;
 import netlogoparaguay.agents.Controls.Agent.Guarani;
+import netlogoparaguay.utils.SpatialGrid;
 
 public class JesuitControl extends AgentControl {
 
+    // MODIFICAÇÃO: Velocidade base do Jesuíta foi reduzida.
+    // O valor original era 2.7f. Os outros atributos permanecem como estavam.
+    public static final ControlTuning DEFAULT_TUNING = new ControlTuning(1.5f, 1.7f, 1.95f, DEFAULT_VISION_RADIUS);
+
     public JesuitControl() {
         super();
-
-        // MODIFICAÇÃO: Velocidade base do Jesuíta foi reduzida.
-        // O valor original era 2.7f.
-        this.baseSpeed = 1.5f;
-
-        // Outros atributos permanecem como estavam.
-        this.attackRange = 1.7f;
-        this.attackCooldownBase = 1.95f;
+        applyTuning(DEFAULT_TUNING);
     }
 
     @Override
@@ -24,23 +21,11 @@ public class JesuitControl extends AgentControl {
             return null;
         }
 
-        List<Guarani> guaranis = simulationManager.getGuaranis();
-        if (guaranis == null || guaranis.isEmpty()) {
+        SpatialGrid<Guarani> guaraniGrid = simulationManager.getGuaraniGrid();
+        if (guaraniGrid == null || guaraniGrid.size() == 0) {
             return null;
         }
 
-        Agent closestEnemy = null;
-        float minDistanceSq = visionRadius * visionRadius;
-
-        for (Guarani guaraniTarget : guaranis) {
-            if (guaraniTarget != null && !guaraniTarget.isDead()) {
-                float distSq = agent.getLocalTranslation().distanceSquared(guaraniTarget.getLocalTranslation());
-                if (distSq < minDistanceSq) {
-                    minDistanceSq = distSq;
-                    closestEnemy = guaraniTarget;
-                }
-            }
-        }
-        return closestEnemy;
+        return guaraniGrid.findNearest(agent.getX(), agent.getY(), visionRadius, null, IS_ALIVE);
     }
 }
\ No newline at end of file
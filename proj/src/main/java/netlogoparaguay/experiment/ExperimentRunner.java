@@ -0,0 +1,267 @@
+package netlogoparaguay.experiment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import netlogoparaguay.simulation.SimulationEngine;
+import netlogoparaguay.utils.SimulationRandom;
+
+/**
+ * Roda uma {@link SweepDefinition} sem interface gráfica: cada execução tem seu próprio
+ * {@link SimulationEngine} e sua semente, e as execuções são distribuídas entre todos os
+ * núcleos. Cada resultado é gravado no CSV assim que a execução termina (a ordem das linhas
+ * é a de término; a coluna {@code run} identifica a execução). No modo adaptativo (ver
+ * {@link SweepDefinition}) o número de repetições de cada combinação é decidido durante o
+ * experimento, pela largura dos intervalos de confiança.
+ *
+ * Uso: ExperimentRunner varredura.properties resultados.csv [threads]
+ */
+public class ExperimentRunner {
+
+    private final SweepDefinition sweep;
+    private final int threads;
+
+    public ExperimentRunner(SweepDefinition sweep, int threads) {
+        this.sweep = sweep;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Uso: ExperimentRunner varredura.properties resultados.csv [threads]");
+            return;
+        }
+        SweepDefinition sweep = SweepDefinition.load(Paths.get(args[0]));
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        new ExperimentRunner(sweep, threads).run(Paths.get(args[1]));
+    }
+
+    /**
+     * Roda o experimento e grava os resultados em {@code output}, uma linha por execução, e o
+     * resumo por combinação (taxas de vitória e tick médio de extinção, com intervalos de
+     * confiança) em um arquivo ao lado, com o sufixo "-summary".
+     * @return Quantas execuções falharam.
+     */
+    public int run(Path output) throws IOException, InterruptedException {
+        List<Map<String, String>> combinations = sweep.combinations();
+        OutcomeEstimate[] estimates = new OutcomeEstimate[combinations.size()];
+        for (int c = 0; c < estimates.length; c++) {
+            estimates[c] = new OutcomeEstimate(c + 1);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new RunnerThreadFactory());
+        String[] stopReasons = new String[combinations.size()];
+        int failures;
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            ResultCsv csv = new ResultCsv(out, sweep.getParameterNames());
+            CompletionService<RunResult> completion = new ExecutorCompletionService<>(executor);
+            failures = sweep.isAdaptive()
+                    ? runAdaptive(combinations, estimates, stopReasons, csv, completion)
+                    : runFixed(estimates, csv, completion);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Path summary = summaryPathFor(output);
+        ResultCsv.writeSummary(summary, sweep.getParameterNames(), combinations, estimates, stopReasons,
+                OutcomeEstimate.zForConfidence(sweep.getConfidence()));
+        System.out.println("Resultados: " + output + (failures > 0 ? " (" + failures + " falhas)" : ""));
+        System.out.println("Resumo: " + summary);
+        return failures;
+    }
+
+    private int runFixed(OutcomeEstimate[] estimates, ResultCsv csv, CompletionService<RunResult> completion)
+            throws IOException, InterruptedException {
+        List<RunSpec> runs = sweep.expand();
+        System.out.println("Experimento: " + runs.size() + " execuções (" + estimates.length
+                + " combinações x " + sweep.getRepetitions() + " repetições), " + threads + " threads, semente base "
+                + sweep.getBaseSeed());
+        for (RunSpec spec : runs) {
+            completion.submit(() -> runSingle(spec));
+        }
+        int failures = 0;
+        long start = System.nanoTime();
+        for (int done = 1; done <= runs.size(); done++) {
+            RunResult result = take(completion);
+            failures += record(result, estimates, csv);
+            if (done % Math.max(1, runs.size() / 20) == 0 || done == runs.size()) {
+                System.out.printf(Locale.ROOT, "Experimento: %d/%d execuções (%.1fs)%n",
+                        done, runs.size(), (System.nanoTime() - start) / 1e9);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Modo adaptativo: cada combinação recebe pelo menos {@code minRepetitions} execuções; depois,
+     * cada núcleo livre vai para a combinação cujo intervalo de confiança está mais longe do alvo,
+     * até que todas convirjam ou atinjam {@code maxRepetitions}. As execuções já em andamento
+     * quando uma combinação converge também entram na estimativa dela.
+     */
+    private int runAdaptive(List<Map<String, String>> combinations, OutcomeEstimate[] estimates, String[] stopReasons,
+                            ResultCsv csv, CompletionService<RunResult> completion) throws IOException, InterruptedException {
+        System.out.printf(Locale.ROOT, "Experimento adaptativo: %d combinações, intervalo de %.0f%% com largura <= %s nas taxas de vitória%s,"
+                        + " %d a %d repetições, %d threads, semente base %d%n",
+                combinations.size(), sweep.getConfidence() * 100, sweep.getTargetWinRateWidth(),
+                Double.isNaN(sweep.getTargetExtinctionTickWidth()) ? "" : " e <= " + sweep.getTargetExtinctionTickWidth() + " ticks na extinção",
+                sweep.getMinRepetitions(), sweep.getMaxRepetitions(), threads, sweep.getBaseSeed());
+
+        double z = OutcomeEstimate.zForConfidence(sweep.getConfidence());
+        SimulationRandom[] seeds = sweep.seedStreams(combinations.size());
+        int[] scheduled = new int[combinations.size()];
+        int[] inFlight = new int[combinations.size()];
+        // Mantém a fila um pouco maior que o número de threads para nenhuma ficar ociosa
+        int maxInFlight = threads * 2;
+        int running = 0;
+        int runNumber = 0;
+        int failures = 0;
+        int open = combinations.size();
+        long start = System.nanoTime();
+
+        while (true) {
+            while (running < maxInFlight) {
+                int c = pickNext(estimates, stopReasons, scheduled, inFlight, z);
+                if (c < 0) break;
+                RunSpec spec = new RunSpec(++runNumber, c + 1, ++scheduled[c], seeds[c].nextLong(), sweep.getDt(), combinations.get(c));
+                completion.submit(() -> runSingle(spec));
+                inFlight[c]++;
+                running++;
+            }
+            if (running == 0) break;
+
+            RunResult result = take(completion);
+            running--;
+            int c = result.getSpec().getCombination() - 1;
+            inFlight[c]--;
+            failures += record(result, estimates, csv);
+
+            if (stopReasons[c] == null) {
+                if (isConverged(estimates[c], z)) {
+                    stopReasons[c] = "converged";
+                } else if (scheduled[c] >= sweep.getMaxRepetitions() && inFlight[c] == 0) {
+                    stopReasons[c] = "maxRepetitions";
+                }
+                if (stopReasons[c] != null) {
+                    open--;
+                    System.out.printf(Locale.ROOT, "Experimento: combinação %d encerrada com %d execuções (%s); %d abertas, %d execuções até agora (%.1fs)%n",
+                            c + 1, estimates[c].getRuns(), stopReasons[c], open, runNumber, (System.nanoTime() - start) / 1e9);
+                }
+            }
+        }
+        System.out.printf(Locale.ROOT, "Experimento: %d execuções no total (o máximo seria %d)%n",
+                runNumber, combinations.size() * sweep.getMaxRepetitions());
+        return failures;
+    }
+
+    /**
+     * Próxima combinação a receber uma execução, ou -1 se nenhuma precisa de mais.
+     */
+    private int pickNext(OutcomeEstimate[] estimates, String[] stopReasons, int[] scheduled, int[] inFlight, double z) {
+        int best = -1;
+        double bestScore = 0;
+        for (int c = 0; c < estimates.length; c++) {
+            if (stopReasons[c] != null || scheduled[c] >= sweep.getMaxRepetitions()) continue;
+            if (scheduled[c] < sweep.getMinRepetitions()) {
+                return c;
+            }
+            // Quanto o intervalo ainda excede o alvo, descontando as execuções já a caminho
+            double score = uncertainty(estimates[c], z) / (1 + inFlight[c]);
+            if (score > bestScore) {
+                best = c;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private boolean isConverged(OutcomeEstimate estimate, double z) {
+        return estimate.getRuns() >= sweep.getMinRepetitions() && uncertainty(estimate, z) <= 1;
+    }
+
+    /**
+     * Maior razão entre a largura de um intervalo de confiança e a largura alvo (<= 1: convergiu).
+     */
+    private double uncertainty(OutcomeEstimate estimate, double z) {
+        double target = sweep.getTargetWinRateWidth();
+        double ratio = Math.max(estimate.guaraniWinRateWidth(z), estimate.jesuitWinRateWidth(z)) / target;
+        double extinctionTarget = sweep.getTargetExtinctionTickWidth();
+        if (!Double.isNaN(extinctionTarget)) {
+            ratio = Math.max(ratio, estimate.extinctionTickWidth(z) / extinctionTarget);
+        }
+        return ratio;
+    }
+
+    private static int record(RunResult result, OutcomeEstimate[] estimates, ResultCsv csv) throws IOException {
+        estimates[result.getSpec().getCombination() - 1].add(result);
+        csv.write(result);
+        if (result.isFailed()) {
+            System.err.println("ERRO: Execução " + result.getSpec().getRunNumber() + " falhou: " + result.getError());
+            return 1;
+        }
+        return 0;
+    }
+
+    static Path summaryPathFor(Path output) {
+        String name = output.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String summaryName = dot > 0 ? name.substring(0, dot) + "-summary" + name.substring(dot) : name + "-summary";
+        return output.resolveSibling(summaryName);
+    }
+
+    private static RunResult take(CompletionService<RunResult> completion) throws InterruptedException {
+        Future<RunResult> future = completion.take();
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // runSingle já captura as falhas da simulação; aqui só chegaria um erro do próprio executor
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Roda uma execução até o fim, registrando o tick em que cada facção foi extinta.
+     */
+    public static RunResult runSingle(RunSpec spec) {
+        try {
+            long start = System.nanoTime();
+            SimulationEngine engine = spec.createEngine();
+            int guaraniExtinction = -1;
+            int jesuitExtinction = -1;
+            float dt = spec.getDt();
+            while (!engine.isFinished()) {
+                engine.step(dt);
+                if (guaraniExtinction < 0 && engine.getActiveGuaraniCount() == 0) guaraniExtinction = engine.getCurrentLoop();
+                if (jesuitExtinction < 0 && engine.getActiveJesuitCount() == 0) jesuitExtinction = engine.getCurrentLoop();
+            }
+            return new RunResult(spec, engine.determineWinner(), engine.getActiveGuaraniCount(), engine.getActiveJesuitCount(),
+                    engine.getCurrentLoop(), guaraniExtinction, jesuitExtinction, (System.nanoTime() - start) / 1e9);
+        } catch (RuntimeException e) {
+            return RunResult.failed(spec, e);
+        }
+    }
+
+    private static final class RunnerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "experiment-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
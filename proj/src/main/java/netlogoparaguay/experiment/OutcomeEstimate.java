@@ -0,0 +1,129 @@
+package netlogoparaguay.experiment;
+
+/**
+ * Estimativas de Monte Carlo do resultado de uma combinação de parâmetros, atualizadas a cada
+ * execução terminada: taxa de vitória de cada facção (intervalo de Wilson, que continua
+ * informativo quando a taxa é 0 ou 1) e tick médio da primeira extinção (intervalo normal,
+ * só sobre as execuções em que alguma facção foi extinta).
+ */
+public final class OutcomeEstimate {
+
+    private final int combination;
+    private int runs = 0;
+    private int failures = 0;
+    private int guaraniWins = 0;
+    private int jesuitWins = 0;
+
+    // Welford: média e soma dos quadrados dos desvios do tick de extinção
+    private int extinctions = 0;
+    private double extinctionMean = 0;
+    private double extinctionM2 = 0;
+
+    public OutcomeEstimate(int combination) {
+        this.combination = combination;
+    }
+
+    public void add(RunResult result) {
+        if (result.isFailed()) {
+            failures++;
+            return;
+        }
+        runs++;
+        // determineWinner devolve "Guarani", "Guarani (Tempo)", "Jesuita", ... ou empate
+        if (result.getWinner().startsWith("Guarani")) guaraniWins++;
+        else if (result.getWinner().startsWith("Jesuita")) jesuitWins++;
+
+        int g = result.getGuaraniExtinctionTick();
+        int j = result.getJesuitExtinctionTick();
+        int tick = g < 0 ? j : (j < 0 ? g : Math.min(g, j));
+        if (tick >= 0) {
+            extinctions++;
+            double delta = tick - extinctionMean;
+            extinctionMean += delta / extinctions;
+            extinctionM2 += delta * (tick - extinctionMean);
+        }
+    }
+
+    public int getCombination() { return combination; }
+    public int getRuns() { return runs; }
+    public int getFailures() { return failures; }
+    public int getExtinctions() { return extinctions; }
+
+    public double getGuaraniWinRate() { return runs == 0 ? Double.NaN : (double) guaraniWins / runs; }
+    public double getJesuitWinRate() { return runs == 0 ? Double.NaN : (double) jesuitWins / runs; }
+    public double getMeanExtinctionTick() { return extinctions == 0 ? Double.NaN : extinctionMean; }
+
+    /** Largura do intervalo de Wilson da taxa de vitória dos guaranis (1 sem execuções). */
+    public double guaraniWinRateWidth(double z) { return wilsonWidth(guaraniWins, runs, z); }
+    public double jesuitWinRateWidth(double z) { return wilsonWidth(jesuitWins, runs, z); }
+
+    /**
+     * Largura do intervalo do tick médio de extinção: 0 se nenhuma execução teve extinção
+     * (não há o que estimar), infinita com uma só (variância indefinida).
+     */
+    public double extinctionTickWidth(double z) {
+        if (extinctions == 0) return 0;
+        if (extinctions == 1) return Double.POSITIVE_INFINITY;
+        return 2 * z * Math.sqrt(extinctionM2 / (extinctions - 1) / extinctions);
+    }
+
+    /** Limites [inferior, superior] do intervalo do tick médio de extinção. */
+    public double[] extinctionTickInterval(double z) {
+        double half = extinctionTickWidth(z) / 2;
+        return new double[] { extinctionMean - half, extinctionMean + half };
+    }
+
+    /** Limites [inferior, superior] do intervalo de Wilson para {@code wins} vitórias. */
+    public double[] guaraniWinRateInterval(double z) { return wilsonInterval(guaraniWins, runs, z); }
+    public double[] jesuitWinRateInterval(double z) { return wilsonInterval(jesuitWins, runs, z); }
+
+    static double wilsonWidth(int successes, int n, double z) {
+        double[] ci = wilsonInterval(successes, n, z);
+        return ci[1] - ci[0];
+    }
+
+    static double[] wilsonInterval(int successes, int n, double z) {
+        if (n == 0) return new double[] { 0, 1 };
+        double p = (double) successes / n;
+        double z2 = z * z;
+        double denominator = 1 + z2 / n;
+        double center = (p + z2 / (2 * n)) / denominator;
+        double half = z * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n)) / denominator;
+        return new double[] { Math.max(0, center - half), Math.min(1, center + half) };
+    }
+
+    /**
+     * Quantil da normal padrão para um nível de confiança bilateral (ex.: 0.95 -> 1.96),
+     * pela aproximação racional de Acklam (erro relativo < 1.2e-9).
+     */
+    public static double zForConfidence(double confidence) {
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("Confiança deve estar entre 0 e 1: " + confidence);
+        }
+        return inverseNormal(1 - (1 - confidence) / 2);
+    }
+
+    private static double inverseNormal(double p) {
+        final double[] a = { -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00 };
+        final double[] b = { -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01 };
+        final double[] c = { -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00 };
+        final double[] d = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00 };
+        final double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            return -inverseNormal(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,111 @@
+package netlogoparaguay.experiment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Grava os {@link RunResult} de um experimento em CSV, uma linha por execução, com uma coluna
+ * por parâmetro variado. Cada linha é descarregada no disco ao ser escrita, para que um
+ * experimento interrompido mantenha o que já terminou.
+ */
+class ResultCsv {
+
+    private final Writer out;
+    private final List<String> parameterNames;
+
+    ResultCsv(Writer out, List<String> parameterNames) throws IOException {
+        this.out = out;
+        this.parameterNames = parameterNames;
+        StringBuilder header = new StringBuilder("run,combination,repetition,seed");
+        for (String name : parameterNames) {
+            header.append(',').append(name);
+        }
+        header.append(",winner,guaranis,jesuits,ticks,guaraniExtinctionTick,jesuitExtinctionTick,seconds,error\n");
+        out.write(header.toString());
+        out.flush();
+    }
+
+    void write(RunResult result) throws IOException {
+        RunSpec spec = result.getSpec();
+        StringBuilder row = new StringBuilder(128);
+        row.append(spec.getRunNumber()).append(',')
+                .append(spec.getCombination()).append(',')
+                .append(spec.getRepetition()).append(',')
+                .append(spec.getSeed());
+        for (String name : parameterNames) {
+            row.append(',').append(spec.getValues().get(name));
+        }
+        row.append(',').append(escape(result.getWinner()))
+                .append(',').append(result.getGuaranis())
+                .append(',').append(result.getJesuits())
+                .append(',').append(result.getTicks())
+                .append(',').append(blankIfNegative(result.getGuaraniExtinctionTick()))
+                .append(',').append(blankIfNegative(result.getJesuitExtinctionTick()))
+                .append(',').append(String.format(Locale.ROOT, "%.3f", result.getSeconds()))
+                .append(',').append(result.isFailed() ? escape(result.getError()) : "")
+                .append('\n');
+        out.write(row.toString());
+        out.flush();
+    }
+
+    /**
+     * Grava o resumo por combinação: taxas de vitória e tick médio da primeira extinção, com
+     * os intervalos de confiança, e por que a combinação parou (só no modo adaptativo).
+     */
+    static void writeSummary(Path file, List<String> parameterNames, List<Map<String, String>> combinations,
+                             OutcomeEstimate[] estimates, String[] stopReasons, double z) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder header = new StringBuilder("combination");
+            for (String name : parameterNames) {
+                header.append(',').append(name);
+            }
+            header.append(",runs,failures,guaraniWinRate,guaraniWinRateLow,guaraniWinRateHigh")
+                    .append(",jesuitWinRate,jesuitWinRateLow,jesuitWinRateHigh")
+                    .append(",extinctions,meanExtinctionTick,meanExtinctionTickLow,meanExtinctionTickHigh,stopReason\n");
+            out.write(header.toString());
+            for (int c = 0; c < estimates.length; c++) {
+                OutcomeEstimate e = estimates[c];
+                StringBuilder row = new StringBuilder(256).append(c + 1);
+                for (String name : parameterNames) {
+                    row.append(',').append(combinations.get(c).get(name));
+                }
+                double[] g = e.guaraniWinRateInterval(z);
+                double[] j = e.jesuitWinRateInterval(z);
+                row.append(',').append(e.getRuns()).append(',').append(e.getFailures())
+                        .append(',').append(number(e.getGuaraniWinRate())).append(',').append(number(g[0])).append(',').append(number(g[1]))
+                        .append(',').append(number(e.getJesuitWinRate())).append(',').append(number(j[0])).append(',').append(number(j[1]))
+                        .append(',').append(e.getExtinctions());
+                if (e.getExtinctions() >= 2) {
+                    double[] t = e.extinctionTickInterval(z);
+                    row.append(',').append(number(e.getMeanExtinctionTick())).append(',').append(number(t[0])).append(',').append(number(t[1]));
+                } else {
+                    row.append(',').append(number(e.getMeanExtinctionTick())).append(",,");
+                }
+                row.append(',').append(stopReasons[c] != null ? stopReasons[c] : "").append('\n');
+                out.write(row.toString());
+            }
+        }
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private static String blankIfNegative(int value) {
+        return value < 0 ? "" : Integer.toString(value);
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,52 @@
+package netlogoparaguay.experiment;
+
+/**
+ * Resultado de uma execução: vencedor, populações finais e o tick em que cada facção
+ * foi extinta (-1 se sobreviveu).
+ */
+public final class RunResult {
+
+    private final RunSpec spec;
+    private final String winner;
+    private final int guaranis;
+    private final int jesuits;
+    private final int ticks;
+    private final int guaraniExtinctionTick;
+    private final int jesuitExtinctionTick;
+    private final double seconds;
+    private final String error;
+
+    RunResult(RunSpec spec, String winner, int guaranis, int jesuits, int ticks,
+              int guaraniExtinctionTick, int jesuitExtinctionTick, double seconds) {
+        this(spec, winner, guaranis, jesuits, ticks, guaraniExtinctionTick, jesuitExtinctionTick, seconds, null);
+    }
+
+    private RunResult(RunSpec spec, String winner, int guaranis, int jesuits, int ticks,
+                      int guaraniExtinctionTick, int jesuitExtinctionTick, double seconds, String error) {
+        this.spec = spec;
+        this.winner = winner;
+        this.guaranis = guaranis;
+        this.jesuits = jesuits;
+        this.ticks = ticks;
+        this.guaraniExtinctionTick = guaraniExtinctionTick;
+        this.jesuitExtinctionTick = jesuitExtinctionTick;
+        this.seconds = seconds;
+        this.error = error;
+    }
+
+    static RunResult failed(RunSpec spec, Throwable cause) {
+        return new RunResult(spec, "-", -1, -1, -1, -1, -1, 0, String.valueOf(cause));
+    }
+
+    public RunSpec getSpec() { return spec; }
+    public String getWinner() { return winner; }
+    public int getGuaranis() { return guaranis; }
+    public int getJesuits() { return jesuits; }
+    public int getTicks() { return ticks; }
+    public int getGuaraniExtinctionTick() { return guaraniExtinctionTick; }
+    public int getJesuitExtinctionTick() { return jesuitExtinctionTick; }
+    public double getSeconds() { return seconds; }
+    public boolean isFailed() { return error != null; }
+    /** Mensagem da exceção que interrompeu a execução, ou null. */
+    public String getError() { return error; }
+}
@@ -0,0 +1,87 @@
+package netlogoparaguay.experiment;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+import netlogoparaguay.agents.Controls.controller.ControlTuning;
+import netlogoparaguay.simulation.SimulationEngine;
+
+/**
+ * Uma execução de um experimento: uma combinação de valores de parâmetros, o número da
+ * repetição e a semente própria.
+ */
+public final class RunSpec {
+
+    private static final int DEFAULT_GUARANIS = 5;
+    private static final int DEFAULT_JESUITS = 5;
+    private static final int DEFAULT_MAX_LOOPS = 10000;
+
+    private final int runNumber;
+    private final int combination;
+    private final int repetition;
+    private final long seed;
+    private final float dt;
+    private final Map<String, String> values;
+
+    RunSpec(int runNumber, int combination, int repetition, long seed, float dt, Map<String, String> values) {
+        this.runNumber = runNumber;
+        this.combination = combination;
+        this.repetition = repetition;
+        this.seed = seed;
+        this.dt = dt;
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    /**
+     * Cria um motor isolado já resetado com os parâmetros desta execução. A fase de decisão
+     * roda em série: o paralelismo do experimento é entre execuções.
+     */
+    public SimulationEngine createEngine() {
+        SimulationEngine engine = new SimulationEngine(
+                intValue("res_capacityPerType", SimulationEngine.DEFAULT_RES_CAPACITY_PER_TYPE),
+                intValue("res_maxOnMapPerType", SimulationEngine.DEFAULT_RES_MAX_ON_MAP_PER_TYPE),
+                floatValue("res_respawnInterval", SimulationEngine.DEFAULT_RES_RESPAWN_INTERVAL));
+        engine.setParallelDecide(false);
+        engine.setSeed(seed);
+        engine.setMaxAgentsPerFaction(intValue("maxAgentsPerFactionSetting", SimulationEngine.DEFAULT_MAX_AGENTS_PER_FACTION));
+        engine.setControlTuning(AgentStore.GUARANI, tuningFor("guarani.", engine.getControlTuning(AgentStore.GUARANI)));
+        engine.setControlTuning(AgentStore.JESUIT, tuningFor("jesuit.", engine.getControlTuning(AgentStore.JESUIT)));
+        engine.reset(
+                intValue("guaraniCountSetting", DEFAULT_GUARANIS),
+                intValue("jesuitCountSetting", DEFAULT_JESUITS),
+                intValue("maxLoopsSetting", DEFAULT_MAX_LOOPS));
+        return engine;
+    }
+
+    private ControlTuning tuningFor(String prefix, ControlTuning defaults) {
+        return defaults
+                .withBaseSpeed(controlValue(prefix, "baseSpeed", defaults.getBaseSpeed()))
+                .withAttackRange(controlValue(prefix, "attackRange", defaults.getAttackRange()))
+                .withAttackCooldownBase(controlValue(prefix, "attackCooldownBase", defaults.getAttackCooldownBase()))
+                .withVisionRadius(controlValue(prefix, "visionRadius", defaults.getVisionRadius()));
+    }
+
+    // O parâmetro com prefixo da facção tem precedência sobre o que vale para as duas
+    private float controlValue(String prefix, String name, float defaultValue) {
+        return floatValue(prefix + name, floatValue(name, defaultValue));
+    }
+
+    private int intValue(String name, int defaultValue) {
+        String v = values.get(name);
+        return v != null ? new java.math.BigDecimal(v).intValueExact() : defaultValue;
+    }
+
+    private float floatValue(String name, float defaultValue) {
+        String v = values.get(name);
+        return v != null ? Float.parseFloat(v) : defaultValue;
+    }
+
+    public int getRunNumber() { return runNumber; }
+    /** Número (a partir de 1) da combinação de valores; as repetições dela compartilham o número. */
+    public int getCombination() { return combination; }
+    public int getRepetition() { return repetition; }
+    public long getSeed() { return seed; }
+    public float getDt() { return dt; }
+    public Map<String, String> getValues() { return values; }
+}
@@ -0,0 +1,297 @@
+package netlogoparaguay.experiment;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import netlogoparaguay.simulation.SimulationClock;
+import netlogoparaguay.utils.SimulationRandom;
+
+/**
+ * Definição de uma varredura de parâmetros, no estilo do BehaviorSpace do NetLogo: para cada
+ * parâmetro, uma lista de valores; o experimento roda todas as combinações, cada uma
+ * {@code repetitions} vezes com sementes diferentes.
+ *
+ * O arquivo é um .properties. Os valores de um parâmetro são uma lista ({@code 10, 20, 40})
+ * ou um intervalo {@code [início passo fim]}, com o fim incluído. Chaves aceitas:
+ * <ul>
+ *   <li>{@code repetitions}, {@code seed} (semente base; sem ela é sorteada), {@code dt};</li>
+ *   <li>{@code guaraniCountSetting}, {@code jesuitCountSetting}, {@code maxLoopsSetting},
+ *       {@code maxAgentsPerFactionSetting};</li>
+ *   <li>{@code baseSpeed}, {@code attackRange}, {@code attackCooldownBase}, {@code visionRadius}
+ *       para as duas facções, ou com prefixo {@code guarani.}/{@code jesuit.} para uma só;</li>
+ *   <li>{@code res_capacityPerType}, {@code res_maxOnMapPerType}, {@code res_respawnInterval}.</li>
+ * </ul>
+ * Parâmetros ausentes ficam com o valor padrão da simulação.
+ *
+ * Com {@code adaptive.winRateWidth} o experimento fica adaptativo: em vez de um número fixo de
+ * repetições, cada combinação recebe execuções até que o intervalo de confiança das taxas de
+ * vitória (e, com {@code adaptive.extinctionTickWidth}, do tick médio de extinção) fique mais
+ * estreito que o alvo. Chaves: {@code adaptive.confidence} (padrão 0.95),
+ * {@code adaptive.minRepetitions} (padrão 10) e {@code adaptive.maxRepetitions} (padrão 1000).
+ */
+public class SweepDefinition {
+
+    static final List<String> COUNT_PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+            "guaraniCountSetting", "jesuitCountSetting", "maxLoopsSetting", "maxAgentsPerFactionSetting"));
+    static final List<String> CONTROL_PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+            "baseSpeed", "attackRange", "attackCooldownBase", "visionRadius"));
+    static final List<String> RESOURCE_PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+            "res_capacityPerType", "res_maxOnMapPerType", "res_respawnInterval"));
+
+    private static final String KEY_REPETITIONS = "repetitions";
+    private static final String KEY_SEED = "seed";
+    private static final String KEY_DT = "dt";
+    private static final String KEY_WIN_RATE_WIDTH = "adaptive.winRateWidth";
+    private static final String KEY_EXTINCTION_WIDTH = "adaptive.extinctionTickWidth";
+    private static final String KEY_CONFIDENCE = "adaptive.confidence";
+    private static final String KEY_MIN_REPETITIONS = "adaptive.minRepetitions";
+    private static final String KEY_MAX_REPETITIONS = "adaptive.maxRepetitions";
+
+    // Parâmetros variados, na ordem do arquivo (define a ordem das colunas e das combinações)
+    private final Map<String, List<String>> parameters = new LinkedHashMap<>();
+    private int repetitions = 1;
+    private long baseSeed = new SimulationRandom().nextLong();
+    private float dt = SimulationClock.DEFAULT_TICK_SECONDS;
+
+    // Modo adaptativo (NaN = desligado / critério não exigido)
+    private double targetWinRateWidth = Double.NaN;
+    private double targetExtinctionTickWidth = Double.NaN;
+    private double confidence = 0.95;
+    private int minRepetitions = 10;
+    private int maxRepetitions = 1000;
+
+    public static SweepDefinition load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        SweepDefinition sweep = new SweepDefinition();
+        for (String key : keysInFileOrder(Files.readAllLines(file, StandardCharsets.UTF_8))) {
+            String value = props.getProperty(key).trim();
+            switch (key) {
+                case KEY_REPETITIONS: sweep.setRepetitions(Integer.parseInt(value)); break;
+                case KEY_SEED: sweep.setBaseSeed(Long.parseLong(value)); break;
+                case KEY_DT: sweep.setDt(Float.parseFloat(value)); break;
+                case KEY_WIN_RATE_WIDTH: sweep.setTargetWinRateWidth(Double.parseDouble(value)); break;
+                case KEY_EXTINCTION_WIDTH: sweep.setTargetExtinctionTickWidth(Double.parseDouble(value)); break;
+                case KEY_CONFIDENCE: sweep.setConfidence(Double.parseDouble(value)); break;
+                case KEY_MIN_REPETITIONS: sweep.setMinRepetitions(Integer.parseInt(value)); break;
+                case KEY_MAX_REPETITIONS: sweep.setMaxRepetitions(Integer.parseInt(value)); break;
+                default: sweep.addParameter(key, parseValues(key, value)); break;
+            }
+        }
+        return sweep;
+    }
+
+    /**
+     * Adiciona (ou substitui) um parâmetro variado.
+     * @throws IllegalArgumentException se o nome não for um parâmetro conhecido ou a lista estiver vazia.
+     */
+    public void addParameter(String name, List<String> values) {
+        if (!isKnownParameter(name)) {
+            throw new IllegalArgumentException("Parâmetro desconhecido na varredura: " + name);
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Parâmetro sem valores: " + name);
+        }
+        for (String v : values) {
+            try {
+                new BigDecimal(v);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor não numérico para " + name + ": " + v);
+            }
+        }
+        parameters.put(name, new ArrayList<>(values));
+    }
+
+    static boolean isKnownParameter(String name) {
+        String base = name;
+        if (name.startsWith("guarani.")) base = name.substring("guarani.".length());
+        else if (name.startsWith("jesuit.")) base = name.substring("jesuit.".length());
+        if (!base.equals(name)) {
+            return CONTROL_PARAMETERS.contains(base);
+        }
+        return COUNT_PARAMETERS.contains(name) || CONTROL_PARAMETERS.contains(name) || RESOURCE_PARAMETERS.contains(name);
+    }
+
+    /**
+     * Lê uma lista "a, b, c" ou um intervalo "[início passo fim]" (fim incluído).
+     */
+    static List<String> parseValues(String name, String text) {
+        List<String> values = new ArrayList<>();
+        if (text.startsWith("[") && text.endsWith("]")) {
+            String[] parts = text.substring(1, text.length() - 1).trim().split("\\s+");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Intervalo inválido para " + name + " (use [início passo fim]): " + text);
+            }
+            // BigDecimal para que [0.1 0.1 0.5] não acumule erro de ponto flutuante
+            BigDecimal start = new BigDecimal(parts[0]);
+            BigDecimal step = new BigDecimal(parts[1]);
+            BigDecimal end = new BigDecimal(parts[2]);
+            if (step.signum() <= 0 || start.compareTo(end) > 0) {
+                throw new IllegalArgumentException("Intervalo vazio ou com passo não positivo para " + name + ": " + text);
+            }
+            for (BigDecimal v = start; v.compareTo(end) <= 0; v = v.add(step)) {
+                values.add(v.toPlainString());
+            }
+        } else {
+            for (String part : text.split(",")) {
+                if (!part.trim().isEmpty()) values.add(part.trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Todas as execuções de um experimento de repetições fixas: cada combinação de valores,
+     * repetida {@code repetitions} vezes.
+     */
+    public List<RunSpec> expand() {
+        List<Map<String, String>> combinations = combinations();
+        SimulationRandom[] seeds = seedStreams(combinations.size());
+        List<RunSpec> runs = new ArrayList<>(combinations.size() * repetitions);
+        for (int c = 0; c < combinations.size(); c++) {
+            for (int r = 0; r < repetitions; r++) {
+                runs.add(new RunSpec(runs.size() + 1, c + 1, r + 1, seeds[c].nextLong(), dt, combinations.get(c)));
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Um fluxo de sementes por combinação, derivado da semente base: a repetição k de uma
+     * combinação usa a k-ésima semente do fluxo dela, no modo fixo e no adaptativo, não
+     * importa em que ordem as execuções são agendadas.
+     */
+    SimulationRandom[] seedStreams(int combinationCount) {
+        SimulationRandom root = new SimulationRandom(baseSeed);
+        SimulationRandom[] streams = new SimulationRandom[combinationCount];
+        for (int c = 0; c < combinationCount; c++) {
+            streams[c] = root.split();
+        }
+        return streams;
+    }
+
+    /**
+     * Todas as combinações de valores, variando mais rápido o último parâmetro do arquivo.
+     */
+    public List<Map<String, String>> combinations() {
+        List<String> names = new ArrayList<>(parameters.keySet());
+        List<Map<String, String>> combinations = new ArrayList<>();
+        combinations.add(new LinkedHashMap<>());
+        for (String name : names) {
+            List<Map<String, String>> next = new ArrayList<>(combinations.size() * parameters.get(name).size());
+            for (Map<String, String> partial : combinations) {
+                for (String value : parameters.get(name)) {
+                    Map<String, String> combination = new LinkedHashMap<>(partial);
+                    combination.put(name, value);
+                    next.add(combination);
+                }
+            }
+            combinations = next;
+        }
+        return combinations;
+    }
+
+    public List<String> getParameterNames() { return new ArrayList<>(parameters.keySet()); }
+    public int getRepetitions() { return repetitions; }
+    public long getBaseSeed() { return baseSeed; }
+    public float getDt() { return dt; }
+    public boolean isAdaptive() { return !Double.isNaN(targetWinRateWidth); }
+    public double getTargetWinRateWidth() { return targetWinRateWidth; }
+    /** NaN quando o tick de extinção não faz parte do critério de parada. */
+    public double getTargetExtinctionTickWidth() { return targetExtinctionTickWidth; }
+    public double getConfidence() { return confidence; }
+    public int getMinRepetitions() { return minRepetitions; }
+    public int getMaxRepetitions() { return maxRepetitions; }
+
+    public void setRepetitions(int repetitions) {
+        if (repetitions < 1) throw new IllegalArgumentException("repetitions deve ser pelo menos 1: " + repetitions);
+        this.repetitions = repetitions;
+    }
+
+    public void setBaseSeed(long baseSeed) { this.baseSeed = baseSeed; }
+
+    /** Liga o modo adaptativo com a largura alvo do intervalo das taxas de vitória (ex.: 0.1). */
+    public void setTargetWinRateWidth(double width) {
+        if (!(width > 0 && width <= 1)) throw new IllegalArgumentException("adaptive.winRateWidth deve estar em (0, 1]: " + width);
+        this.targetWinRateWidth = width;
+    }
+
+    /** Largura alvo, em ticks, do intervalo do tick médio de extinção (NaN = não exigir). */
+    public void setTargetExtinctionTickWidth(double width) {
+        if (!(width > 0) && !Double.isNaN(width)) {
+            throw new IllegalArgumentException("adaptive.extinctionTickWidth deve ser positivo: " + width);
+        }
+        this.targetExtinctionTickWidth = width;
+    }
+
+    public void setConfidence(double confidence) {
+        OutcomeEstimate.zForConfidence(confidence); // valida
+        this.confidence = confidence;
+    }
+
+    public void setMinRepetitions(int minRepetitions) {
+        if (minRepetitions < 2) throw new IllegalArgumentException("adaptive.minRepetitions deve ser pelo menos 2: " + minRepetitions);
+        this.minRepetitions = minRepetitions;
+    }
+
+    public void setMaxRepetitions(int maxRepetitions) {
+        if (maxRepetitions < 1) throw new IllegalArgumentException("adaptive.maxRepetitions deve ser pelo menos 1: " + maxRepetitions);
+        this.maxRepetitions = maxRepetitions;
+    }
+
+    public void setDt(float dt) {
+        if (!(dt > 0)) throw new IllegalArgumentException("dt deve ser positivo: " + dt);
+        this.dt = dt;
+    }
+
+    /**
+     * Nomes das chaves de um .properties na ordem em que aparecem (o Properties usa a ordem do hash).
+     * Cada linha lógica, já juntando as continuações com '\\', é lida sozinha por um Properties,
+     * para que escapes e separadores sejam interpretados exatamente como em {@link Properties#load}.
+     */
+    private static List<String> keysInFileOrder(List<String> lines) throws IOException {
+        Set<String> keys = new LinkedHashSet<>();
+        StringBuilder logical = new StringBuilder();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (logical.length() == 0 && (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("!"))) {
+                continue;
+            }
+            logical.append(line).append('\n');
+            if (endsWithContinuation(line)) {
+                continue;
+            }
+            Properties single = new Properties();
+            single.load(new StringReader(logical.toString()));
+            for (String key : single.stringPropertyNames()) {
+                keys.add(key);
+            }
+            logical.setLength(0);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /** Linha terminada em um número ímpar de '\\' continua na próxima. */
+    private static boolean endsWithContinuation(String line) {
+        int backslashes = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+}
@@ -0,0 +1,101 @@
+package netlogoparaguay.replay;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escrita sequencial em um arquivo mapeado em memória, remapeado em blocos conforme cresce.
+ * Não há chamada de sistema por registro: gravar é só copiar bytes para a página mapeada.
+ */
+final class MappedLogWriter {
+
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+
+    MappedLogWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(0);
+    }
+
+    private void map(long start) throws IOException {
+        bufferStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, start, CHUNK_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            map(position());
+        }
+    }
+
+    long position() {
+        return bufferStart + buffer.position();
+    }
+
+    void putByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void putFloat(float value) throws IOException {
+        ensure(4);
+        buffer.putFloat(value);
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    /** Inteiro sem sinal em 7 bits por byte (1 byte até 127, 3 bytes até 2M). */
+    void putVarInt(int value) throws IOException {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /** Sobrescreve um long já gravado (ex.: campos do cabeçalho). */
+    void patchLong(long filePosition, long value) throws IOException {
+        if (filePosition >= bufferStart) {
+            buffer.putLong((int) (filePosition - bufferStart), value);
+            return;
+        }
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_WRITE, filePosition, 8);
+        head.order(ByteOrder.LITTLE_ENDIAN).putLong(0, value);
+        head.force();
+    }
+
+    /**
+     * Grava as páginas no disco, corta o arquivo no fim dos dados e fecha o canal. No Windows
+     * não é possível encolher um arquivo que ainda tem regiões mapeadas; lá o corte falha e o
+     * arquivo fica com o tamanho do último bloco mapeado (o resto são zeros, lidos como fim dos dados).
+     */
+    void close() throws IOException {
+        long written = position();
+        buffer.force();
+        buffer = null;
+        try {
+            channel.truncate(written);
+        } catch (IOException e) {
+            // Mapeamento ainda aberto (Windows): mantém o bloco inteiro
+        }
+        channel.close();
+    }
+}
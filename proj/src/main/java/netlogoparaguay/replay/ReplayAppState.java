@@ -0,0 +1,216 @@
+package netlogoparaguay.replay;
+
+import com.jme3.app.Application;
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.BaseAppState;
+import com.jme3.input.InputManager;
+import com.jme3.input.KeyInput;
+import com.jme3.input.controls.ActionListener;
+import com.jme3.input.controls.KeyTrigger;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import netlogoparaguay.agents.Controls.Agent.AgentPointRenderer;
+import netlogoparaguay.resources.ResourceVisuals;
+
+/**
+ * Reproduz um log gravado pelo {@link RunRecorder} sem rodar o motor nem os AgentControl:
+ * a cena é montada só a partir das posições decodificadas. Permite pausar, mudar a
+ * velocidade e saltar para qualquer tick.
+ *
+ * Teclas: espaço pausa/continua, +/- muda a velocidade, setas esquerda/direita voltam ou
+ * avançam um intervalo de keyframe, Home volta ao início.
+ */
+public class ReplayAppState extends BaseAppState implements ActionListener {
+
+    private static final String MAPPING_PLAY = "Replay_Play";
+    private static final String MAPPING_FASTER = "Replay_Faster";
+    private static final String MAPPING_SLOWER = "Replay_Slower";
+    private static final String MAPPING_BACK = "Replay_Back";
+    private static final String MAPPING_FORWARD = "Replay_Forward";
+    private static final String MAPPING_START = "Replay_Start";
+
+    private static final float MIN_SPEED = 0.25f;
+    private static final float MAX_SPEED = 64f;
+
+    private final Path path;
+    private SimpleApplication app;
+    private RunLogReader reader;
+    private ReplayState state;
+
+    private Node replayRootNode;
+    private AgentPointRenderer agentPointRenderer;
+    private ResourceVisuals resourceVisuals;
+    private Spatial[] resourceSpatials = new Spatial[0];
+
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private byte[] factions = new byte[0];
+
+    private boolean playing = true;
+    private float playbackSpeed = 1f;
+    private float accumulator = 0f;
+    private boolean sceneDirty = true;
+
+    public ReplayAppState(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    protected void initialize(Application app) {
+        this.app = (SimpleApplication) app;
+        try {
+            reader = new RunLogReader(path);
+        } catch (IOException e) {
+            System.err.println("ERRO: Não foi possível abrir o replay " + path + ": " + e.getMessage());
+            setEnabled(false);
+            return;
+        }
+        state = reader.newState();
+        reader.seek(0, state);
+        System.out.println("Replay: " + path + " (" + reader.getFrameCount() + " ticks, semente " + reader.getSeed() + ")");
+
+        agentPointRenderer = new AgentPointRenderer(app.getAssetManager(), reader.getWidth(), reader.getHeight());
+        resourceVisuals = new ResourceVisuals(app.getAssetManager());
+        replayRootNode = new Node("Replay_RootNode");
+        replayRootNode.attachChild(agentPointRenderer.getGeometry());
+    }
+
+    @Override
+    protected void cleanup(Application app) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                System.err.println("ERRO: Falha ao fechar o replay: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    protected void onEnable() {
+        if (reader == null) return;
+        app.getRootNode().attachChild(replayRootNode);
+        InputManager input = app.getInputManager();
+        input.addMapping(MAPPING_PLAY, new KeyTrigger(KeyInput.KEY_SPACE));
+        input.addMapping(MAPPING_FASTER, new KeyTrigger(KeyInput.KEY_ADD), new KeyTrigger(KeyInput.KEY_EQUALS));
+        input.addMapping(MAPPING_SLOWER, new KeyTrigger(KeyInput.KEY_SUBTRACT), new KeyTrigger(KeyInput.KEY_MINUS));
+        input.addMapping(MAPPING_BACK, new KeyTrigger(KeyInput.KEY_LEFT));
+        input.addMapping(MAPPING_FORWARD, new KeyTrigger(KeyInput.KEY_RIGHT));
+        input.addMapping(MAPPING_START, new KeyTrigger(KeyInput.KEY_HOME));
+        input.addListener(this, MAPPING_PLAY, MAPPING_FASTER, MAPPING_SLOWER, MAPPING_BACK, MAPPING_FORWARD, MAPPING_START);
+    }
+
+    @Override
+    protected void onDisable() {
+        if (reader == null) return;
+        replayRootNode.removeFromParent();
+        InputManager input = app.getInputManager();
+        for (String mapping : new String[] {MAPPING_PLAY, MAPPING_FASTER, MAPPING_SLOWER, MAPPING_BACK, MAPPING_FORWARD, MAPPING_START}) {
+            if (input.hasMapping(mapping)) input.deleteMapping(mapping);
+        }
+        input.removeListener(this);
+    }
+
+    @Override
+    public void onAction(String name, boolean isPressed, float tpf) {
+        if (isPressed) return;
+        switch (name) {
+            case MAPPING_PLAY: setPlaying(!playing); break;
+            case MAPPING_FASTER: setPlaybackSpeed(playbackSpeed * 2f); break;
+            case MAPPING_SLOWER: setPlaybackSpeed(playbackSpeed / 2f); break;
+            case MAPPING_BACK: seek(getCurrentFrame() - RunRecorder.KEYFRAME_INTERVAL); break;
+            case MAPPING_FORWARD: seek(getCurrentFrame() + RunRecorder.KEYFRAME_INTERVAL); break;
+            case MAPPING_START: seek(0); break;
+            default: break;
+        }
+    }
+
+    @Override
+    public void update(float tpf) {
+        if (reader == null) return;
+
+        if (playing) {
+            float tickSeconds = reader.getTickSeconds();
+            accumulator += tpf * playbackSpeed;
+            while (accumulator >= tickSeconds) {
+                if (!reader.readFrame(state)) {
+                    // Fim do log: fica parado no último tick
+                    playing = false;
+                    accumulator = 0f;
+                    break;
+                }
+                accumulator -= tickSeconds;
+                sceneDirty = true;
+            }
+        }
+
+        if (sceneDirty) {
+            syncScene();
+            sceneDirty = false;
+        }
+    }
+
+    private void syncScene() {
+        int alive = state.getAliveCount();
+        if (alive > xs.length) {
+            int newLength = Math.max(alive, xs.length * 2);
+            xs = new float[newLength];
+            ys = new float[newLength];
+            factions = new byte[newLength];
+        }
+        int count = state.collectAgents(xs, ys, factions);
+        agentPointRenderer.update(count, xs, ys, factions);
+
+        int limit = state.getResourceIdLimit();
+        if (limit > resourceSpatials.length) {
+            resourceSpatials = Arrays.copyOf(resourceSpatials, limit);
+        }
+        for (int id = 0; id < resourceSpatials.length; id++) {
+            Spatial spatial = resourceSpatials[id];
+            if (!state.isResourceActive(id)) {
+                if (spatial != null) spatial.removeFromParent();
+                continue;
+            }
+            if (spatial == null) {
+                spatial = resourceVisuals.createSpatial(state.getResourceType(id));
+                resourceSpatials[id] = spatial;
+            }
+            spatial.setLocalTranslation(state.getResourceX(id), state.getResourceY(id), 0f);
+            if (spatial.getParent() == null) {
+                replayRootNode.attachChild(spatial);
+            }
+        }
+    }
+
+    /**
+     * Salta para o fim do tick indicado da gravação (0 = início).
+     */
+    public void seek(int frame) {
+        if (reader == null) return;
+        reader.seek(frame, state);
+        accumulator = 0f;
+        sceneDirty = true;
+    }
+
+    public void setPlaying(boolean playing) {
+        this.playing = playing;
+        accumulator = 0f;
+    }
+
+    /**
+     * @param speed Ticks gravados por tick de tempo real (1 = velocidade original).
+     */
+    public void setPlaybackSpeed(float speed) {
+        this.playbackSpeed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+        System.out.println("Replay: velocidade " + playbackSpeed + "x");
+    }
+
+    public boolean isPlaying() { return playing; }
+    public float getPlaybackSpeed() { return playbackSpeed; }
+    public int getCurrentFrame() { return reader != null ? reader.getCurrentFrame() : 0; }
+    public int getFrameCount() { return reader != null ? reader.getFrameCount() : 0; }
+    public ReplayState getState() { return state; }
+}
@@ -0,0 +1,148 @@
+package netlogoparaguay.replay;
+
+import java.util.Arrays;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+import netlogoparaguay.resources.ResourceType;
+
+/**
+ * Estado do mundo reconstruído a partir de um log, indexado pelos ids gravados.
+ * Não conhece o motor nem os controles dos agentes: só posições, facções e recursos.
+ */
+public final class ReplayState {
+
+    private static final ResourceType[] TYPES = ResourceType.values();
+
+    private final float width;
+    private final float height;
+
+    private byte[] agentFaction = new byte[256];
+    private int[] agentQx = new int[256];
+    private int[] agentQy = new int[256];
+    private boolean[] agentAlive = new boolean[256];
+    private int agentIdLimit = 0;
+    private final int[] aliveCount = new int[2];
+
+    private byte[] resourceType = new byte[64];
+    private int[] resourceQx = new int[64];
+    private int[] resourceQy = new int[64];
+    private boolean[] resourceActive = new boolean[64];
+    private int resourceIdLimit = 0;
+
+    private int loop = 0;
+    private long seed = 0;
+    private int attacksThisFrame = 0;
+    private int collectionsThisFrame = 0;
+
+    public ReplayState(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    void clear() {
+        Arrays.fill(agentAlive, 0, agentIdLimit, false);
+        Arrays.fill(resourceActive, 0, resourceIdLimit, false);
+        agentIdLimit = 0;
+        resourceIdLimit = 0;
+        Arrays.fill(aliveCount, 0);
+        loop = 0;
+        beginFrame();
+    }
+
+    void beginFrame() {
+        attacksThisFrame = 0;
+        collectionsThisFrame = 0;
+    }
+
+    void spawnAgent(int id, int faction, int qx, int qy) {
+        if (id >= agentAlive.length) {
+            int newLength = Math.max(id + 1, agentAlive.length * 2);
+            agentFaction = Arrays.copyOf(agentFaction, newLength);
+            agentQx = Arrays.copyOf(agentQx, newLength);
+            agentQy = Arrays.copyOf(agentQy, newLength);
+            agentAlive = Arrays.copyOf(agentAlive, newLength);
+        }
+        if (agentAlive[id]) {
+            aliveCount[agentFaction[id]]--;
+        }
+        agentFaction[id] = (byte) faction;
+        agentQx[id] = qx;
+        agentQy[id] = qy;
+        agentAlive[id] = true;
+        aliveCount[faction]++;
+        agentIdLimit = Math.max(agentIdLimit, id + 1);
+    }
+
+    void removeAgent(int id) {
+        if (id < agentIdLimit && agentAlive[id]) {
+            agentAlive[id] = false;
+            aliveCount[agentFaction[id]]--;
+        }
+    }
+
+    void moveAgent(int id, int dqx, int dqy) {
+        agentQx[id] += dqx;
+        agentQy[id] += dqy;
+    }
+
+    void spawnResource(int id, int type, int qx, int qy) {
+        if (id >= resourceActive.length) {
+            int newLength = Math.max(id + 1, resourceActive.length * 2);
+            resourceType = Arrays.copyOf(resourceType, newLength);
+            resourceQx = Arrays.copyOf(resourceQx, newLength);
+            resourceQy = Arrays.copyOf(resourceQy, newLength);
+            resourceActive = Arrays.copyOf(resourceActive, newLength);
+        }
+        resourceType[id] = (byte) type;
+        resourceQx[id] = qx;
+        resourceQy[id] = qy;
+        resourceActive[id] = true;
+        resourceIdLimit = Math.max(resourceIdLimit, id + 1);
+    }
+
+    void removeResource(int id) {
+        if (id < resourceIdLimit) {
+            resourceActive[id] = false;
+        }
+    }
+
+    void setLoop(int loop) { this.loop = loop; }
+    void setSeed(long seed) { this.seed = seed; }
+    void countAttack() { attacksThisFrame++; }
+    void countCollection() { collectionsThisFrame++; }
+
+    /**
+     * Copia posição e facção dos agentes vivos para os arrays (ex.: para o AgentPointRenderer).
+     * Os arrays devem ter pelo menos {@link #getAliveCount()} posições.
+     * @return Quantos agentes foram copiados.
+     */
+    public int collectAgents(float[] xs, float[] ys, byte[] factions) {
+        int count = 0;
+        for (int id = 0; id < agentIdLimit; id++) {
+            if (!agentAlive[id]) continue;
+            xs[count] = RunLogFormat.dequantize(agentQx[id], width);
+            ys[count] = RunLogFormat.dequantize(agentQy[id], height);
+            factions[count] = agentFaction[id];
+            count++;
+        }
+        return count;
+    }
+
+    public int getAliveCount() { return aliveCount[AgentStore.GUARANI] + aliveCount[AgentStore.JESUIT]; }
+    public int getAliveCount(int faction) { return aliveCount[faction]; }
+    public int getAgentIdLimit() { return agentIdLimit; }
+    public boolean isAgentAlive(int id) { return id < agentIdLimit && agentAlive[id]; }
+    public int getAgentFaction(int id) { return agentFaction[id]; }
+    public float getAgentX(int id) { return RunLogFormat.dequantize(agentQx[id], width); }
+    public float getAgentY(int id) { return RunLogFormat.dequantize(agentQy[id], height); }
+
+    public int getResourceIdLimit() { return resourceIdLimit; }
+    public boolean isResourceActive(int id) { return id < resourceIdLimit && resourceActive[id]; }
+    public ResourceType getResourceType(int id) { return TYPES[resourceType[id]]; }
+    public float getResourceX(int id) { return RunLogFormat.dequantize(resourceQx[id], width); }
+    public float getResourceY(int id) { return RunLogFormat.dequantize(resourceQy[id], height); }
+
+    public int getLoop() { return loop; }
+    public long getSeed() { return seed; }
+    public int getAttacksThisFrame() { return attacksThisFrame; }
+    public int getCollectionsThisFrame() { return collectionsThisFrame; }
+}
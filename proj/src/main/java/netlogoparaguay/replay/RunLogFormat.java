@@ -0,0 +1,69 @@
+package netlogoparaguay.replay;
+
+/**
+ * Formato do log binário de uma execução (.nlrun).
+ *
+ * Cabeçalho fixo ({@link #HEADER_SIZE} bytes): magia, versão, largura e altura do mundo,
+ * duração do tick, semente e o offset do índice de keyframes (0 se o log não foi fechado).
+ * Depois vem uma sequência de registros, cada um com um byte de opcode seguido de
+ * varints. Todos os eventos até um {@link #TICK_END} pertencem àquele tick. O byte 0
+ * ({@link #END}) marca o fim dos dados; como o arquivo mapeado cresce preenchido com
+ * zeros, um log interrompido (queda da JVM) continua legível até o último registro.
+ *
+ * Posições são quantizadas em 16 bits sobre a área do mundo; nos {@link #MOVES} cada
+ * agente que se moveu grava só a diferença (zigzag) para a última posição gravada.
+ */
+public final class RunLogFormat {
+
+    public static final int MAGIC = 0x4E4C524E; // "NLRN"
+    public static final int VERSION = 1;
+
+    // magia(4) versão(4) largura(4) altura(4) tick(4) semente(8) offsetDoIndice(8)
+    public static final int HEADER_SIZE = 36;
+    public static final int INDEX_OFFSET_POSITION = 28;
+
+    public static final int END = 0;
+    /** loop do motor */
+    public static final int TICK_END = 1;
+    /** id, facção, qx, qy */
+    public static final int SPAWN = 2;
+    /** id */
+    public static final int DEATH = 3;
+    /** idAtacante, idAlvo, dano*10 */
+    public static final int ATTACK = 4;
+    /** idAgente, idRecurso */
+    public static final int COLLECT = 5;
+    /** idRecurso, tipo, qx, qy */
+    public static final int RESOURCE_SPAWN = 6;
+    /** idRecurso */
+    public static final int RESOURCE_REMOVE = 7;
+    /** repetido: id+1, zigzag(dqx), zigzag(dqy); termina com 0 */
+    public static final int MOVES = 8;
+    /** loop, nAgentes x (id, facção, qx, qy), nRecursos x (id, tipo, qx, qy) */
+    public static final int KEYFRAME = 9;
+    /** semente (8 bytes); novo início de simulação: todo o estado anterior é descartado */
+    public static final int RESET = 10;
+
+    public static final int QUANT_MAX = 0xFFFF;
+
+    private RunLogFormat() { }
+
+    public static int quantize(float value, float extent) {
+        float t = value / extent + 0.5f;
+        if (t <= 0f) return 0;
+        if (t >= 1f) return QUANT_MAX;
+        return Math.round(t * QUANT_MAX);
+    }
+
+    public static float dequantize(int q, float extent) {
+        return (q / (float) QUANT_MAX - 0.5f) * extent;
+    }
+
+    public static int zigZag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    public static int unZigZag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,247 @@
+package netlogoparaguay.replay;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lê um log gravado pelo {@link RunRecorder}, quadro a quadro, aplicando os eventos em um
+ * {@link ReplayState}. O arquivo é mapeado inteiro em memória (somente leitura).
+ *
+ * Para saltar para um tick ({@link #seek}), parte do keyframe mais próximo anterior e aplica
+ * os quadros seguintes. Se o log não foi fechado (sem índice), o índice é reconstruído
+ * percorrendo o arquivo uma vez na abertura.
+ */
+public final class RunLogReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+
+    private final float width;
+    private final float height;
+    private final float tickSeconds;
+    private final long seed;
+
+    private int frameCount;
+    private int[] keyframeFrames = new int[16];
+    private int[] keyframeOffsets = new int[16];
+    private int keyframeCount = 0;
+
+    private int currentFrame = 0;
+    // Estado em que os quadros estão sendo aplicados; outro estado recomeça de um keyframe
+    private ReplayState appliedState;
+
+    public RunLogReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < RunLogFormat.HEADER_SIZE) {
+            channel.close();
+            throw new IOException("Arquivo muito pequeno para um log de execução: " + path);
+        }
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Log de execução maior que 2 GB não é suportado: " + path);
+        }
+        this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        data.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (data.getInt() != RunLogFormat.MAGIC) {
+            channel.close();
+            throw new IOException("Arquivo não é um log de execução: " + path);
+        }
+        int version = data.getInt();
+        if (version != RunLogFormat.VERSION) {
+            channel.close();
+            throw new IOException("Versão de log não suportada: " + version);
+        }
+        this.width = data.getFloat();
+        this.height = data.getFloat();
+        this.tickSeconds = data.getFloat();
+        this.seed = data.getLong();
+        long indexOffset = data.getLong();
+
+        if (indexOffset > 0) {
+            readIndex((int) indexOffset);
+        } else {
+            System.err.println("Replay: log sem índice (gravação interrompida?), reconstruindo...");
+            rebuildIndex();
+        }
+    }
+
+    private void readIndex(int offset) {
+        data.position(offset);
+        frameCount = readVarInt();
+        int count = readVarInt();
+        for (int i = 0; i < count; i++) {
+            addKeyframe(readVarInt(), (int) data.getLong());
+        }
+    }
+
+    private void rebuildIndex() {
+        ReplayState scratch = newState();
+        data.position(RunLogFormat.HEADER_SIZE);
+        int frame = 0;
+        while (true) {
+            int offset = data.position();
+            int op = applyRecord(scratch);
+            if (op == RunLogFormat.END) break;
+            if (op == RunLogFormat.KEYFRAME) addKeyframe(frame, offset);
+            if (op == RunLogFormat.TICK_END) frame++;
+        }
+        frameCount = frame;
+    }
+
+    private void addKeyframe(int frame, int offset) {
+        if (keyframeCount == keyframeFrames.length) {
+            keyframeFrames = Arrays.copyOf(keyframeFrames, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeFrames[keyframeCount] = frame;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+    }
+
+    /** Cria um estado vazio com as dimensões do mundo gravado. */
+    public ReplayState newState() {
+        ReplayState state = new ReplayState(width, height);
+        state.setSeed(seed);
+        return state;
+    }
+
+    /**
+     * Posiciona a leitura no fim do quadro indicado (0 = estado no início da gravação).
+     * @param frame Quadro desejado, limitado a [0, frameCount].
+     */
+    public void seek(int frame, ReplayState state) {
+        frame = Math.max(0, Math.min(frame, frameCount));
+        int k = Arrays.binarySearch(keyframeFrames, 0, keyframeCount, frame);
+        if (k < 0) k = -k - 2;
+
+        // Continuar do ponto atual é mais barato se o alvo está à frente e depois do keyframe
+        if (state != appliedState || frame < currentFrame || keyframeFrames[k] > currentFrame) {
+            loadKeyframe(k, state);
+        }
+        while (currentFrame < frame && readFrame(state)) {
+            // avança
+        }
+    }
+
+    /**
+     * Aplica o próximo quadro (todos os eventos até o fim do tick).
+     * @return false se o log acabou.
+     */
+    public boolean readFrame(ReplayState state) {
+        if (state != appliedState) {
+            loadKeyframe(0, state);
+        }
+        state.beginFrame();
+        while (true) {
+            int op = applyRecord(state);
+            if (op == RunLogFormat.TICK_END) {
+                currentFrame++;
+                return true;
+            }
+            if (op == RunLogFormat.END) {
+                return false;
+            }
+        }
+    }
+
+    private void loadKeyframe(int k, ReplayState state) {
+        data.position(keyframeOffsets[k]);
+        applyRecord(state);
+        currentFrame = keyframeFrames[k];
+        appliedState = state;
+    }
+
+    private int applyRecord(ReplayState state) {
+        if (!data.hasRemaining()) {
+            return RunLogFormat.END;
+        }
+        int op = data.get() & 0xFF;
+        switch (op) {
+            case RunLogFormat.END:
+                // Não consome o marcador: leituras seguintes continuam vendo o fim
+                data.position(data.position() - 1);
+                break;
+            case RunLogFormat.TICK_END:
+                state.setLoop(readVarInt());
+                break;
+            case RunLogFormat.SPAWN:
+                state.spawnAgent(readVarInt(), data.get(), readVarInt(), readVarInt());
+                break;
+            case RunLogFormat.DEATH:
+                state.removeAgent(readVarInt());
+                break;
+            case RunLogFormat.ATTACK:
+                readVarInt();
+                readVarInt();
+                readVarInt();
+                state.countAttack();
+                break;
+            case RunLogFormat.COLLECT:
+                readVarInt();
+                readVarInt();
+                state.countCollection();
+                break;
+            case RunLogFormat.RESOURCE_SPAWN:
+                state.spawnResource(readVarInt(), data.get(), readVarInt(), readVarInt());
+                break;
+            case RunLogFormat.RESOURCE_REMOVE:
+                state.removeResource(readVarInt());
+                break;
+            case RunLogFormat.MOVES:
+                for (int idPlusOne = readVarInt(); idPlusOne != 0; idPlusOne = readVarInt()) {
+                    int dx = RunLogFormat.unZigZag(readVarInt());
+                    int dy = RunLogFormat.unZigZag(readVarInt());
+                    state.moveAgent(idPlusOne - 1, dx, dy);
+                }
+                break;
+            case RunLogFormat.KEYFRAME:
+                state.clear();
+                state.setLoop(readVarInt());
+                for (int i = 0, n = readVarInt(); i < n; i++) {
+                    state.spawnAgent(readVarInt(), data.get(), readVarInt(), readVarInt());
+                }
+                for (int i = 0, n = readVarInt(); i < n; i++) {
+                    state.spawnResource(readVarInt(), data.get(), readVarInt(), readVarInt());
+                }
+                break;
+            case RunLogFormat.RESET:
+                state.clear();
+                state.setSeed(data.getLong());
+                break;
+            default:
+                throw new IllegalStateException("Registro desconhecido " + op + " no offset " + (data.position() - 1));
+        }
+        return op;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    public int getFrameCount() { return frameCount; }
+    public int getCurrentFrame() { return currentFrame; }
+    public float getTickSeconds() { return tickSeconds; }
+    public float getWidth() { return width; }
+    public float getHeight() { return height; }
+    public long getSeed() { return seed; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,295 @@
+package netlogoparaguay.replay;
+
+import com.jme3.math.Vector3f;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import netlogoparaguay.agents.Controls.Agent.Agent;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+import netlogoparaguay.resources.Resource;
+import netlogoparaguay.resources.ResourceManager;
+import netlogoparaguay.resources.ResourceType;
+import netlogoparaguay.simulation.SimulationEngine;
+import netlogoparaguay.simulation.SimulationListener;
+
+/**
+ * Grava uma execução no formato de {@link RunLogFormat}, como listener do motor.
+ * Cada evento vira um registro curto; ao fim de cada tick são gravados apenas os agentes
+ * que mudaram de posição quantizada. A cada {@link #KEYFRAME_INTERVAL} ticks é gravado o
+ * estado completo, para que o replay possa saltar para qualquer ponto sem decodificar
+ * o log desde o início.
+ *
+ * A gravação pode começar com a simulação em andamento: o primeiro keyframe é o estado
+ * atual do motor. Um erro de E/S apenas encerra a gravação; a simulação continua.
+ */
+public class RunRecorder implements SimulationListener {
+
+    public static final int KEYFRAME_INTERVAL = 300;
+    private static final ResourceType[] RESOURCE_TYPES = ResourceType.values();
+
+    private final SimulationEngine engine;
+    private final MappedLogWriter out;
+    private final float width;
+    private final float height;
+
+    // Última posição quantizada gravada de cada agente, indexada pelo id
+    private int[] lastQx = new int[256];
+    private int[] lastQy = new int[256];
+
+    private int frameCount = 0;
+    private int[] keyframeFrames = new int[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframeCount = 0;
+
+    private boolean failed = false;
+    private boolean closed = false;
+
+    public RunRecorder(SimulationEngine engine, Path path, float tickSeconds) throws IOException {
+        this.engine = engine;
+        this.width = engine.getAreaWidth();
+        this.height = engine.getAreaHeight();
+        this.out = new MappedLogWriter(path);
+
+        out.putInt(RunLogFormat.MAGIC);
+        out.putInt(RunLogFormat.VERSION);
+        out.putFloat(width);
+        out.putFloat(height);
+        out.putFloat(tickSeconds);
+        out.putLong(engine.getCurrentSeed());
+        out.putLong(0L); // offset do índice, preenchido no close()
+        writeKeyframe();
+    }
+
+    // --- Eventos do motor ---
+
+    @Override
+    public void onReset() {
+        if (failed) return;
+        try {
+            out.putByte(RunLogFormat.RESET);
+            out.putLong(engine.getCurrentSeed());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onAgentAdded(Agent agent) {
+        if (failed) return;
+        try {
+            writeSpawn(agent);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onAgentRemoved(Agent agent) {
+        if (failed) return;
+        try {
+            out.putByte(RunLogFormat.DEATH);
+            out.putVarInt(agent.getId());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onAttack(Agent attacker, Agent target, float damage) {
+        if (failed) return;
+        try {
+            out.putByte(RunLogFormat.ATTACK);
+            out.putVarInt(attacker.getId());
+            out.putVarInt(target.getId());
+            out.putVarInt(Math.max(0, Math.round(damage * 10f)));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onResourceCollected(Agent collector, Resource resource) {
+        if (failed) return;
+        try {
+            out.putByte(RunLogFormat.COLLECT);
+            out.putVarInt(collector.getId());
+            out.putVarInt(resource.getId());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onResourceSpawned(Resource resource) {
+        if (failed) return;
+        try {
+            out.putByte(RunLogFormat.RESOURCE_SPAWN);
+            writeResource(resource);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onResourceRemoved(Resource resource) {
+        if (failed) return;
+        try {
+            out.putByte(RunLogFormat.RESOURCE_REMOVE);
+            out.putVarInt(resource.getId());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onTickEnd(int loop) {
+        if (failed) return;
+        try {
+            writeMoves();
+            out.putByte(RunLogFormat.TICK_END);
+            out.putVarInt(loop);
+            frameCount++;
+            if (frameCount % KEYFRAME_INTERVAL == 0) {
+                writeKeyframe();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // --- Registros ---
+
+    private void writeSpawn(Agent agent) throws IOException {
+        int id = agent.getId();
+        int qx = RunLogFormat.quantize(agent.getX(), width);
+        int qy = RunLogFormat.quantize(agent.getY(), height);
+        remember(id, qx, qy);
+        out.putByte(RunLogFormat.SPAWN);
+        out.putVarInt(id);
+        out.putByte(agent.getFaction());
+        out.putVarInt(qx);
+        out.putVarInt(qy);
+    }
+
+    private void writeResource(Resource resource) throws IOException {
+        Vector3f pos = resource.getPosition();
+        out.putVarInt(resource.getId());
+        out.putByte(resource.getType().ordinal());
+        out.putVarInt(RunLogFormat.quantize(pos.x, width));
+        out.putVarInt(RunLogFormat.quantize(pos.y, height));
+    }
+
+    private void writeMoves() throws IOException {
+        AgentStore store = engine.getAgentStore();
+        boolean opened = false;
+        for (int slot = 0, n = store.size(); slot < n; slot++) {
+            if (store.isDead(slot)) continue;
+            int id = store.getAgent(slot).getId();
+            int qx = RunLogFormat.quantize(store.getX(slot), width);
+            int qy = RunLogFormat.quantize(store.getY(slot), height);
+            int dx = qx - lastQx[id];
+            int dy = qy - lastQy[id];
+            if (dx == 0 && dy == 0) continue;
+
+            if (!opened) {
+                out.putByte(RunLogFormat.MOVES);
+                opened = true;
+            }
+            out.putVarInt(id + 1);
+            out.putVarInt(RunLogFormat.zigZag(dx));
+            out.putVarInt(RunLogFormat.zigZag(dy));
+            lastQx[id] = qx;
+            lastQy[id] = qy;
+        }
+        if (opened) {
+            out.putVarInt(0);
+        }
+    }
+
+    private void writeKeyframe() throws IOException {
+        if (keyframeCount == keyframeFrames.length) {
+            keyframeFrames = Arrays.copyOf(keyframeFrames, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeFrames[keyframeCount] = frameCount;
+        keyframeOffsets[keyframeCount] = out.position();
+        keyframeCount++;
+
+        AgentStore store = engine.getAgentStore();
+        out.putByte(RunLogFormat.KEYFRAME);
+        out.putVarInt(engine.getCurrentLoop());
+
+        int n = store.size();
+        int alive = 0;
+        for (int slot = 0; slot < n; slot++) {
+            if (!store.isDead(slot)) alive++;
+        }
+        out.putVarInt(alive);
+        for (int slot = 0; slot < n; slot++) {
+            if (store.isDead(slot)) continue;
+            int id = store.getAgent(slot).getId();
+            int qx = RunLogFormat.quantize(store.getX(slot), width);
+            int qy = RunLogFormat.quantize(store.getY(slot), height);
+            remember(id, qx, qy);
+            out.putVarInt(id);
+            out.putByte(store.getFaction(slot));
+            out.putVarInt(qx);
+            out.putVarInt(qy);
+        }
+
+        // Direto dos arrays do ResourceManager, na mesma ordem de getAvailableResources(), sem alocar
+        ResourceManager resources = engine.getResourceManager();
+        int available = 0;
+        for (ResourceType type : RESOURCE_TYPES) {
+            for (int i = 0, r = resources.getActiveCount(type); i < r; i++) {
+                if (resources.getActive(type, i).isAvailable()) available++;
+            }
+        }
+        out.putVarInt(available);
+        for (ResourceType type : RESOURCE_TYPES) {
+            for (int i = 0, r = resources.getActiveCount(type); i < r; i++) {
+                Resource resource = resources.getActive(type, i);
+                if (resource.isAvailable()) writeResource(resource);
+            }
+        }
+    }
+
+    private void remember(int id, int qx, int qy) {
+        if (id >= lastQx.length) {
+            int newLength = Math.max(id + 1, lastQx.length * 2);
+            lastQx = Arrays.copyOf(lastQx, newLength);
+            lastQy = Arrays.copyOf(lastQy, newLength);
+        }
+        lastQx[id] = qx;
+        lastQy[id] = qy;
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        System.err.println("ERRO: Gravação da execução interrompida: " + e.getMessage());
+    }
+
+    /**
+     * Finaliza o log: grava o marcador de fim, o índice de keyframes e o offset do índice
+     * no cabeçalho. O motor não deve mais chamar este listener depois disso.
+     */
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (!failed) {
+            out.putByte(RunLogFormat.END);
+            long indexOffset = out.position();
+            out.putVarInt(frameCount);
+            out.putVarInt(keyframeCount);
+            for (int i = 0; i < keyframeCount; i++) {
+                out.putVarInt(keyframeFrames[i]);
+                out.putLong(keyframeOffsets[i]);
+            }
+            out.patchLong(RunLogFormat.INDEX_OFFSET_POSITION, indexOffset);
+        }
+        failed = true;
+        out.close();
+    }
+
+    public int getFrameCount() { return frameCount; }
+}
@@ -1,62 +1,26 @@
 package netlogoparaguay.resources;
 
-import com.jme3.asset.AssetManager;
-import com.jme3.material.Material;
-import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
-import com.jme3.scene.Geometry;
-import com.jme3.scene.Node;
-import com.jme3.scene.Spatial;
-import com.jme3.scene.shape.Box;
-import com.jme3.scene.shape.Sphere;
 
 /**
  * Representa um recurso no mundo do jogo que pode ser coletado por agentes.
+ * Contém apenas o estado da simulação; a representação visual fica em {@link ResourceVisuals}.
  */
 public class Resource {
 
     private final ResourceType type;
-    private final Spatial spatial;
+    private final Vector3f position = new Vector3f();
     private boolean available;
-    private final AssetManager assetManager;
 
-    public Resource(ResourceType type, AssetManager assetManager, Vector3f initialPosition) {
+    // Posição na lista de ativos do ResourceManager (swap-remove), ou -1 fora do mapa
+    int activeIndex = -1;
+    // Identificador fixo da entrada do pool (tipo e ordem de criação)
+    int id = -1;
+
+    public Resource(ResourceType type, Vector3f initialPosition) {
         this.type = type;
-        this.assetManager = assetManager;
         this.available = true;
-        this.spatial = createSpatialModel();
-        this.spatial.setLocalTranslation(initialPosition);
-        this.spatial.setName("Resource_" + type.name() + "_" + System.currentTimeMillis() % 10000);
-    }
-
-    private Spatial createSpatialModel() {
-        Geometry geom;
-        Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
-
-        switch (type) {
-            case WOOD:
-                Box woodShape = new Box(0.3f, 0.3f, 0.3f);
-                geom = new Geometry("WoodResourceModel", woodShape);
-                mat.setColor("Color", ColorRGBA.Brown);
-                break;
-            case SOY:
-                Sphere soyShape = new Sphere(16, 16, 0.25f);
-                geom = new Geometry("SoyResourceModel", soyShape);
-                mat.setColor("Color", ColorRGBA.Yellow);
-                break;
-            case MATE:
-                Sphere mateShape = new Sphere(16, 16, 0.25f);
-                geom = new Geometry("MateResourceModel", mateShape);
-                mat.setColor("Color", ColorRGBA.Green.mult(0.5f));
-                break;
-            default:
-                Box defaultShape = new Box(0.2f, 0.2f, 0.2f);
-                geom = new Geometry("DefaultResourceModel", defaultShape);
-                mat.setColor("Color", ColorRGBA.LightGray);
-                break;
-        }
-        geom.setMaterial(mat);
-        return geom;
+        this.position.set(initialPosition);
     }
 
     public void setAvailable(boolean available) {
@@ -67,38 +31,27 @@ public class Resource {
         this.available = false;
     }
 
-    public void spawnOnNode(Node parentNode) {
-        if (spatial.getParent() == null) {
-            parentNode.attachChild(spatial);
-        }
-        this.available = true;
+    public void setPosition(Vector3f position) {
+        this.position.set(position);
     }
 
-    public void removeFromNode() {
-        if (spatial.getParent() != null) {
-            spatial.getParent().detachChild(spatial);
-        }
+    public void setPosition(float x, float y, float z) {
+        this.position.set(x, y, z);
     }
 
-    public void setPosition(Vector3f position) {
-        if (spatial != null) {
-            spatial.setLocalTranslation(position);
-        }
+    public int getId() {
+        return id;
     }
 
     public ResourceType getType() {
         return type;
     }
 
-    public Spatial getSpatial() {
-        return spatial;
-    }
-
     public boolean isAvailable() {
         return available;
     }
 
     public Vector3f getPosition() {
-        return spatial != null ? spatial.getLocalTranslation() : Vector3f.ZERO;
+        return position;
     }
-}
\ No newline at end of file
+}
@@ -1,59 +1,74 @@
 package netlogoparaguay.resources;
 
-import com.jme3.asset.AssetManager;
 import com.jme3.math.Vector3f;
-import com.jme3.scene.Node;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.function.Predicate;
+import netlogoparaguay.simulation.SimulationListener;
+import netlogoparaguay.simulation.jfr.ResourceCollectedEvent;
+import netlogoparaguay.utils.SimulationRandom;
+import netlogoparaguay.utils.SnapshotBuffer;
+import netlogoparaguay.utils.SpatialGrid;
 
+/**
+ * Gerencia o pool de recursos do mapa: spawn periódico, coleta e consultas de proximidade.
+ * Não depende da cena do jMonkeyEngine; quem desenha os recursos acompanha as mudanças
+ * pelo {@link SimulationListener} registrado.
+ */
 public class ResourceManager {
 
-    private final AssetManager assetManager;
-    private final Node resourceRootNode;
-    private final Map<ResourceType, List<Resource>> resourcePool;
-    private final Map<ResourceType, List<Resource>> activeResources;
+    private static final ResourceType[] TYPES = ResourceType.values();
+    private static final Predicate<Resource> IS_AVAILABLE = Resource::isAvailable;
+
+    // Pool por tipo (indexado pelo ordinal), em arrays de tamanho fixo capacityPerType:
+    // - free: pilha dos recursos inativos, pronta para o próximo spawn;
+    // - active: recursos no mapa, compactados por swap-remove (Resource.activeIndex).
+    // Spawn, coleta e limpeza custam O(1) por recurso e não alocam depois de o pool encher.
+    private final Resource[][] free;
+    private final int[] freeCount;
+    private final Resource[][] active;
+    private final int[] activeCount;
+    // Quantos recursos de cada tipo já foram criados (o pool cresce sob demanda)
+    private final int[] createdCount;
+
+    // Índice espacial por tipo (indexado pelo ordinal), atualizado no spawn e na coleta.
+    // Permite buscar o recurso mais próximo sem montar listas a cada consulta.
+    private final SpatialGrid<Resource>[] spatialIndex;
 
     private final int capacityPerType;
     private final int maxOnMapPerType;
     private final float respawnInterval;
     private float currentRespawnTimer = 0f;
 
-    private final Random random = new Random();
+    // Fluxo das posições de spawn; o motor troca por um derivado da semente a cada reset
+    private SimulationRandom random = new SimulationRandom();
+    private SimulationListener listener;
 
     private final float areaWidth;
     private final float areaHeight;
 
-    public ResourceManager(AssetManager assetManager, Node resourceRootNode,
-                           int capacityPerType, int maxOnMapPerType, float respawnInterval,
-                           float areaWidth, float areaHeight) {
-        this.assetManager = assetManager;
-        this.resourceRootNode = resourceRootNode;
+    public ResourceManager(int capacityPerType, int maxOnMapPerType, float respawnInterval,
+                           float areaWidth, float areaHeight, float indexCellSize) {
         this.capacityPerType = capacityPerType;
         this.maxOnMapPerType = maxOnMapPerType;
         this.respawnInterval = respawnInterval;
         this.areaWidth = areaWidth;
         this.areaHeight = areaHeight;
 
-        this.resourcePool = new EnumMap<>(ResourceType.class);
-        this.activeResources = new EnumMap<>(ResourceType.class);
-
-        for (ResourceType type : ResourceType.values()) {
-            resourcePool.put(type, new ArrayList<>());
-            activeResources.put(type, new ArrayList<>());
-            for (int i = 0; i < capacityPerType; i++) {
-                Resource res = new Resource(type, assetManager, Vector3f.ZERO);
-                res.setAvailable(false);
-                resourcePool.get(type).add(res);
-            }
-        }
+        // O pool começa vazio e cresce sob demanda até capacityPerType (ver acquireFromPool),
+        // então construir ou resetar o gerenciador não custa proporcional à capacidade.
+        this.free = new Resource[TYPES.length][capacityPerType];
+        this.freeCount = new int[TYPES.length];
+        this.active = new Resource[TYPES.length][capacityPerType];
+        this.activeCount = new int[TYPES.length];
+        this.createdCount = new int[TYPES.length];
+        this.spatialIndex = newSpatialIndex(TYPES.length, areaWidth, areaHeight, indexCellSize);
     }
 
     public void resetAndRepopulate() {
         cleanupAllResources();
-        for (ResourceType type : ResourceType.values()) {
+        for (ResourceType type : TYPES) {
             for (int i = 0; i < maxOnMapPerType; i++) {
                 spawnResource(type);
             }
@@ -62,39 +77,69 @@ public class ResourceManager {
     }
 
     public void cleanupAllResources() {
-        for (List<Resource> activeList : activeResources.values()) {
-            for (Resource res : new ArrayList<>(activeList)) {
-                res.removeFromNode();
+        for (int t = 0; t < TYPES.length; t++) {
+            Resource[] activeForType = active[t];
+            for (int i = 0, n = activeCount[t]; i < n; i++) {
+                Resource res = activeForType[i];
+                activeForType[i] = null;
                 res.setAvailable(false);
+                res.activeIndex = -1;
+                free[t][freeCount[t]++] = res;
+                if (listener != null) listener.onResourceRemoved(res);
             }
-            activeList.clear();
+            activeCount[t] = 0;
+        }
+        for (SpatialGrid<Resource> grid : spatialIndex) {
+            grid.clear();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static SpatialGrid<Resource>[] newSpatialIndex(int typeCount, float width, float height, float cellSize) {
+        SpatialGrid<Resource>[] grids = new SpatialGrid[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            grids[i] = new SpatialGrid<>(width, height, cellSize);
         }
+        return grids;
     }
 
     private void spawnResource(ResourceType type) {
-        if (activeResources.get(type).size() >= maxOnMapPerType) {
+        int t = type.ordinal();
+        if (activeCount[t] >= maxOnMapPerType) {
             return;
         }
 
-        Resource resourceToSpawn = findInactiveResourceInPool(type);
+        Resource resourceToSpawn = acquireFromPool(type);
 
         if (resourceToSpawn != null) {
             float x = (random.nextFloat() - 0.5f) * (areaWidth - 1f);
             float y = (random.nextFloat() - 0.5f) * (areaHeight - 1f);
-            resourceToSpawn.setPosition(new Vector3f(x, y, 0));
+            resourceToSpawn.setPosition(x, y, 0);
             resourceToSpawn.setAvailable(true);
-            resourceToSpawn.spawnOnNode(resourceRootNode);
-            activeResources.get(type).add(resourceToSpawn);
+            resourceToSpawn.activeIndex = activeCount[t];
+            active[t][activeCount[t]++] = resourceToSpawn;
+            spatialIndex[t].insert(resourceToSpawn, x, y);
+            if (listener != null) listener.onResourceSpawned(resourceToSpawn);
         }
     }
 
-    private Resource findInactiveResourceInPool(ResourceType type) {
-        List<Resource> poolForType = resourcePool.get(type);
-        List<Resource> activeForType = activeResources.get(type);
-        for (Resource res : poolForType) {
-            if (!activeForType.contains(res)) {
-                return res;
-            }
+    /**
+     * Retira um recurso inativo do topo da pilha livre, criando um novo enquanto o
+     * pool não tiver atingido a capacidade.
+     * @return O recurso, ou null se todos os recursos do tipo estiverem no mapa.
+     */
+    private Resource acquireFromPool(ResourceType type) {
+        int t = type.ordinal();
+        if (freeCount[t] > 0) {
+            Resource res = free[t][--freeCount[t]];
+            free[t][freeCount[t]] = null;
+            return res;
+        }
+        if (createdCount[t] < capacityPerType) {
+            Resource res = new Resource(type, Vector3f.ZERO);
+            res.id = t * capacityPerType + createdCount[t]++;
+            res.setAvailable(false);
+            return res;
         }
         return null;
     }
@@ -104,8 +149,8 @@ public class ResourceManager {
         currentRespawnTimer += tpf;
         if (currentRespawnTimer >= respawnInterval) {
             currentRespawnTimer = 0f;
-            for (ResourceType type : ResourceType.values()) {
-                if (activeResources.get(type).size() < maxOnMapPerType) {
+            for (ResourceType type : TYPES) {
+                if (activeCount[type.ordinal()] < maxOnMapPerType) {
                     spawnResource(type);
                 }
             }
@@ -114,17 +159,251 @@ public class ResourceManager {
 
     public void notifyResourceCollected(Resource resource) {
         if (resource == null || !resource.isAvailable()) return;
+        int t = resource.getType().ordinal();
+        Vector3f pos = resource.getPosition();
+        spatialIndex[t].remove(resource, pos.x, pos.y);
         resource.collect();
-        resource.removeFromNode();
-        activeResources.get(resource.getType()).remove(resource);
+
+        ResourceCollectedEvent event = new ResourceCollectedEvent();
+        if (event.shouldCommit()) {
+            event.resourceId = resource.getId();
+            event.type = resource.getType().name();
+            event.x = pos.x;
+            event.y = pos.y;
+            event.commit();
+        }
+
+        // Swap-remove: o último ativo ocupa o lugar do coletado
+        int index = resource.activeIndex;
+        int last = --activeCount[t];
+        Resource moved = active[t][last];
+        active[t][index] = moved;
+        moved.activeIndex = index;
+        active[t][last] = null;
+        resource.activeIndex = -1;
+        free[t][freeCount[t]++] = resource;
+
+        if (listener != null) listener.onResourceRemoved(resource);
+    }
+
+    /**
+     * Busca o recurso disponível mais próximo de uma posição usando o índice espacial.
+     * Não aloca memória: visita apenas as células do índice que intersectam o raio.
+     * @param pos A posição de referência (normalmente a do agente).
+     * @param radius Distância máxima (exclusiva) de busca.
+     * @param filter Tipo de recurso desejado, ou null para qualquer tipo.
+     * @return O recurso mais próximo, ou null se nenhum estiver dentro do raio.
+     */
+    public Resource findNearestAvailable(Vector3f pos, float radius, ResourceType filter) {
+        return findNearestAvailable(pos.x, pos.y, radius, filter);
+    }
+
+    /**
+     * Igual a {@link #findNearestAvailable(Vector3f, float, ResourceType)}, recebendo as coordenadas
+     * no plano XY. Só faz leituras, então pode ser chamado em paralelo enquanto nenhum
+     * recurso estiver sendo criado ou coletado.
+     */
+    public Resource findNearestAvailable(float x, float y, float radius, ResourceType filter) {
+        if (filter != null) {
+            return spatialIndex[filter.ordinal()].findNearest(x, y, radius, null, IS_AVAILABLE);
+        }
+
+        Resource closest = null;
+        float closestDistSq = Float.MAX_VALUE;
+        for (ResourceType type : TYPES) {
+            Resource candidate = spatialIndex[type.ordinal()].findNearest(x, y, radius, null, IS_AVAILABLE);
+            if (candidate != null) {
+                Vector3f pos = candidate.getPosition();
+                float dx = pos.x - x;
+                float dy = pos.y - y;
+                float distSq = dx * dx + dy * dy;
+                if (distSq < closestDistSq) {
+                    closestDistSq = distSq;
+                    closest = candidate;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Recurso com o id informado (ver {@link Resource#getId()}), no mapa ou no pool,
+     * ou null se ele ainda não foi criado.
+     */
+    public Resource getResourceById(int id) {
+        int t = id / capacityPerType;
+        if (id < 0 || t >= TYPES.length) return null;
+        for (int i = 0, n = activeCount[t]; i < n; i++) {
+            if (active[t][i].id == id) return active[t][i];
+        }
+        for (int i = 0, n = freeCount[t]; i < n; i++) {
+            if (free[t][i].id == id) return free[t][i];
+        }
+        return null;
+    }
+
+    /**
+     * Grava o estado do pool em um checkpoint: temporizador, fluxo aleatório e, por tipo,
+     * a posição de cada recurso criado e a ordem das pilhas de ativos e livres (a ordem
+     * define qual recurso sai do pool no próximo spawn).
+     */
+    public void writeState(SnapshotBuffer out) {
+        out.putFloat(currentRespawnTimer);
+        random.writeState(out);
+        for (int t = 0; t < TYPES.length; t++) {
+            out.putInt(createdCount[t]);
+            out.putInt(activeCount[t]);
+            for (int i = 0; i < activeCount[t]; i++) {
+                writeResource(out, active[t][i]);
+            }
+            out.putInt(freeCount[t]);
+            for (int i = 0; i < freeCount[t]; i++) {
+                writeResource(out, free[t][i]);
+            }
+        }
+    }
+
+    private static void writeResource(SnapshotBuffer out, Resource res) {
+        Vector3f pos = res.getPosition();
+        out.putInt(res.id).putFloat(pos.x).putFloat(pos.y).putFloat(pos.z);
+    }
+
+    /**
+     * Confere, sem alterar nada, se os dados a seguir são um estado de {@link #writeState}
+     * compatível com este pool (contagens dentro da capacidade por tipo, ids do intervalo
+     * do tipo e sem repetição) e avança {@code in} até o fim dele.
+     * @throws IllegalArgumentException se os dados forem inválidos ou de outra capacidade.
+     * @throws java.nio.BufferUnderflowException se os dados acabarem antes do fim.
+     */
+    public void validateState(ByteBuffer in) {
+        in.getFloat();
+        SimulationRandom.readState(in);
+        for (int t = 0; t < TYPES.length; t++) {
+            boolean[] seen = new boolean[capacityPerType];
+            int created = in.getInt();
+            if (created < 0 || created > capacityPerType) {
+                throw new IllegalArgumentException("O checkpoint tem " + created + " recursos de " + TYPES[t]
+                        + ", mas a capacidade por tipo é " + capacityPerType);
+            }
+            for (int list = 0; list < 2; list++) {
+                int count = in.getInt();
+                if (count < 0 || count > capacityPerType) {
+                    throw new IllegalArgumentException("Contagem de recursos inválida para " + TYPES[t] + ": " + count);
+                }
+                for (int i = 0; i < count; i++) {
+                    int index = in.getInt() - t * capacityPerType;
+                    if (index < 0 || index >= capacityPerType || seen[index]) {
+                        throw new IllegalArgumentException("Id de recurso inválido ou repetido para " + TYPES[t]
+                                + ": " + (index + t * capacityPerType));
+                    }
+                    seen[index] = true;
+                    in.getFloat();
+                    in.getFloat();
+                    in.getFloat();
+                }
+            }
+        }
+    }
+
+    /**
+     * Substitui o estado atual pelo gravado em {@link #writeState}. Os recursos que saem do
+     * mapa e os que voltam são anunciados ao listener, como em um reset. Os dados devem ter
+     * passado por {@link #validateState}; aqui não há verificação.
+     */
+    public void readState(ByteBuffer in) {
+        cleanupAllResources();
+        currentRespawnTimer = in.getFloat();
+        random = SimulationRandom.readState(in);
+
+        for (int t = 0; t < TYPES.length; t++) {
+            // Reaproveita os objetos já criados (todos estão na pilha livre após o cleanup)
+            Resource[] byIndex = new Resource[capacityPerType];
+            for (int i = 0; i < freeCount[t]; i++) {
+                Resource res = free[t][i];
+                byIndex[res.id - t * capacityPerType] = res;
+                free[t][i] = null;
+            }
+            freeCount[t] = 0;
+
+            createdCount[t] = in.getInt();
+            int activeToRead = in.getInt();
+            for (int i = 0; i < activeToRead; i++) {
+                Resource res = readResource(in, TYPES[t], byIndex);
+                res.setAvailable(true);
+                res.activeIndex = i;
+                active[t][i] = res;
+                Vector3f pos = res.getPosition();
+                spatialIndex[t].insert(res, pos.x, pos.y);
+            }
+            activeCount[t] = activeToRead;
+            int freeToRead = in.getInt();
+            for (int i = 0; i < freeToRead; i++) {
+                Resource res = readResource(in, TYPES[t], byIndex);
+                res.setAvailable(false);
+                res.activeIndex = -1;
+                free[t][i] = res;
+            }
+            freeCount[t] = freeToRead;
+        }
+
+        if (listener != null) {
+            for (int t = 0; t < TYPES.length; t++) {
+                for (int i = 0; i < activeCount[t]; i++) {
+                    listener.onResourceSpawned(active[t][i]);
+                }
+            }
+        }
+    }
+
+    private Resource readResource(ByteBuffer in, ResourceType type, Resource[] byIndex) {
+        int id = in.getInt();
+        int index = id - type.ordinal() * capacityPerType;
+        Resource res = byIndex[index];
+        if (res == null) {
+            res = new Resource(type, Vector3f.ZERO);
+            res.id = id;
+            byIndex[index] = res;
+        }
+        res.setPosition(in.getFloat(), in.getFloat(), in.getFloat());
+        return res;
+    }
+
+    /**
+     * Define o gerador das posições de spawn, para execuções reprodutíveis.
+     */
+    public void setRandom(SimulationRandom random) {
+        this.random = random;
+    }
+
+    public void setListener(SimulationListener listener) {
+        this.listener = listener;
+    }
+
+    /** Quantos recursos estão no mapa agora (todos os tipos), sem montar listas. */
+    public int getResourcesOnMap() {
+        int total = 0;
+        for (int count : activeCount) {
+            total += count;
+        }
+        return total;
+    }
+
+    /** Quantos recursos do tipo estão no mapa; com {@link #getActive} percorre-os sem montar listas. */
+    public int getActiveCount(ResourceType type) {
+        return activeCount[type.ordinal()];
+    }
+
+    /** O i-ésimo recurso do tipo no mapa (0 <= index < {@link #getActiveCount}). */
+    public Resource getActive(ResourceType type, int index) {
+        return active[type.ordinal()][index];
     }
 
     public List<Resource> getAvailableResources() {
         List<Resource> allAvailable = new ArrayList<>();
-        for (List<Resource> listPerType : activeResources.values()) {
-            for (Resource res : listPerType) {
-                if (res.isAvailable()) {
-                    allAvailable.add(res);
+        for (int t = 0; t < TYPES.length; t++) {
+            for (int i = 0, n = activeCount[t]; i < n; i++) {
+                if (active[t][i].isAvailable()) {
+                    allAvailable.add(active[t][i]);
                 }
             }
         }
@@ -0,0 +1,70 @@
+package netlogoparaguay.resources;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Cria a representação visual (Spatial) de um recurso.
+ * Separada de {@link Resource} para que a simulação rode sem o jMonkeyEngine.
+ * A malha e o material de cada {@link ResourceType} são criados uma única vez e
+ * compartilhados por todos os recursos desse tipo.
+ */
+public class ResourceVisuals {
+
+    private final AssetManager assetManager;
+    private final Map<ResourceType, Mesh> meshCache = new EnumMap<>(ResourceType.class);
+    private final Map<ResourceType, Material> materialCache = new EnumMap<>(ResourceType.class);
+
+    public ResourceVisuals(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    public Spatial createSpatial(ResourceType type) {
+        Geometry geom = new Geometry("Resource_" + type.name(), getMesh(type));
+        geom.setMaterial(getMaterial(type));
+        return geom;
+    }
+
+    private Mesh getMesh(ResourceType type) {
+        return meshCache.computeIfAbsent(type, t -> {
+            switch (t) {
+                case WOOD:
+                    return new Box(0.3f, 0.3f, 0.3f);
+                case SOY:
+                case MATE:
+                    return new Sphere(16, 16, 0.25f);
+                default:
+                    return new Box(0.2f, 0.2f, 0.2f);
+            }
+        });
+    }
+
+    private Material getMaterial(ResourceType type) {
+        return materialCache.computeIfAbsent(type, t -> {
+            Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            switch (t) {
+                case WOOD:
+                    mat.setColor("Color", ColorRGBA.Brown);
+                    break;
+                case SOY:
+                    mat.setColor("Color", ColorRGBA.Yellow);
+                    break;
+                case MATE:
+                    mat.setColor("Color", ColorRGBA.Green.mult(0.5f));
+                    break;
+                default:
+                    mat.setColor("Color", ColorRGBA.LightGray);
+                    break;
+            }
+            return mat;
+        });
+    }
+}
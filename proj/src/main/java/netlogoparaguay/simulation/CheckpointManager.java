@@ -0,0 +1,142 @@
+package netlogoparaguay.simulation;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import netlogoparaguay.utils.SnapshotBuffer;
+
+/**
+ * Checkpoints periódicos de uma execução longa.
+ * A cada {@code intervalTicks} ticks o estado do motor é copiado para um buffer na thread
+ * da simulação (entre ticks, então é consistente) e gravado no arquivo por uma thread de
+ * fundo, sem segurar o próximo tick. O arquivo é escrito em um temporário e depois movido
+ * por cima do anterior, então uma queda durante a gravação não corrompe o último checkpoint.
+ *
+ * Se a gravação anterior ainda não terminou quando chega a hora de outra, esta é pulada.
+ */
+public class CheckpointManager implements SimulationListener, AutoCloseable {
+
+    public static final int DEFAULT_INTERVAL_TICKS = 10_000;
+
+    private final SimulationEngine engine;
+    private final Path file;
+    private final int intervalTicks;
+
+    // Reaproveitado entre checkpoints: só é reescrito quando a gravação anterior já terminou
+    private final SnapshotBuffer buffer = new SnapshotBuffer(64 * 1024);
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pendingWrite;
+
+    public CheckpointManager(SimulationEngine engine, Path file, int intervalTicks) {
+        if (intervalTicks <= 0) {
+            throw new IllegalArgumentException("intervalTicks deve ser positivo: " + intervalTicks);
+        }
+        this.engine = engine;
+        this.file = file;
+        this.intervalTicks = intervalTicks;
+    }
+
+    @Override
+    public void onTickEnd(int loop) {
+        if (loop % intervalTicks == 0) {
+            checkpointNow();
+        }
+    }
+
+    /**
+     * Copia o estado atual e agenda a gravação em segundo plano.
+     * @return false se a gravação anterior ainda estava em andamento (nada foi feito).
+     */
+    public boolean checkpointNow() {
+        if (pendingWrite != null && !pendingWrite.isDone()) {
+            System.err.println("Checkpoint: gravação anterior ainda em andamento, pulando o loop " + engine.getCurrentLoop());
+            return false;
+        }
+        buffer.clear();
+        engine.writeSnapshot(buffer);
+        ByteBuffer data = buffer.contents();
+        int loop = engine.getCurrentLoop();
+        pendingWrite = writer.submit(() -> {
+            try {
+                write(file, data);
+            } catch (IOException e) {
+                System.err.println("ERRO: Falha ao gravar o checkpoint do loop " + loop + ": " + e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Espera a gravação pendente e encerra a thread de fundo.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("ERRO: Checkpoint ainda sendo gravado após 30s.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Grava um snapshot (ex.: de {@link SnapshotBuffer#contents()}) no arquivo, de forma atômica.
+     */
+    public static void write(Path file, ByteBuffer data) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer src = data.duplicate();
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lê um checkpoint gravado por {@link #write} e o restaura no motor.
+     */
+    public static void restore(SimulationEngine engine, Path file) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Checkpoint grande demais: " + size + " bytes");
+            }
+            data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // lê até o fim
+            }
+        }
+        data.flip();
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            engine.restoreSnapshot(data);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException("Checkpoint inválido ou corrompido: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package netlogoparaguay.simulation;
+
+import com.jme3.app.Application;
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.BaseAppState;
+import com.jme3.font.BitmapFont;
+import com.jme3.font.BitmapText;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Quad;
+import netlogoparaguay.agents.Controls.Agent.AgentPointRenderer;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+import netlogoparaguay.utils.SimulationRandom;
+
+/**
+ * Roda, junto com a simulação principal, um conjunto de mundos independentes em um
+ * {@link EnsembleHost} e mostra os primeiros como miniaturas no canto inferior da tela.
+ *
+ * Os mundos do conjunto seguem a simulação principal: a cada reset dela são resetados com as
+ * mesmas populações, limites e parâmetros de comportamento, com sementes derivadas da semente
+ * principal; pausam e mudam de velocidade junto com ela.
+ */
+public class EnsembleAppState extends BaseAppState implements SimulationListener {
+
+    public static final int MAX_THUMBNAILS = 4;
+    private static final float THUMBNAIL_SIZE = 150f;
+    private static final float THUMBNAIL_MARGIN = 10f;
+    private static final float THUMBNAIL_POINT_SIZE = 2f;
+    // Mais ticks por frame que isto deixariam a janela travada enquanto o conjunto alcança
+    private static final int MAX_TICKS_PER_FRAME = 8;
+
+    private final SimulationAppStates main;
+    private final int worldCount;
+    private final SimulationClock clock = new SimulationClock();
+
+    private SimpleApplication app;
+    private EnsembleHost host;
+    private Node thumbnailsNode;
+    private AgentPointRenderer[] renderers;
+    private BitmapText[] labels;
+    private BitmapText summaryText;
+    private float timeSinceLabels = 0f;
+
+    public EnsembleAppState(SimulationAppStates main, int worldCount) {
+        this.main = main;
+        this.worldCount = Math.max(1, worldCount);
+    }
+
+    @Override
+    protected void initialize(Application app) {
+        this.app = (SimpleApplication) app;
+        SimulationEngine mainEngine = main.getEngine();
+        host = new EnsembleHost();
+        for (int i = 0; i < worldCount; i++) {
+            host.addWorld(new SimulationEngine(mainEngine.getAreaWidth(), mainEngine.getAreaHeight(),
+                    SimulationEngine.DEFAULT_RES_CAPACITY_PER_TYPE, SimulationEngine.DEFAULT_RES_MAX_ON_MAP_PER_TYPE,
+                    SimulationEngine.DEFAULT_RES_RESPAWN_INTERVAL));
+        }
+
+        BitmapFont font = app.getAssetManager().loadFont("Interface/Fonts/Default.fnt");
+        float textSize = font.getCharSet().getRenderedSize() * 0.75f;
+        thumbnailsNode = new Node("Ensemble_Thumbnails");
+        int shown = Math.min(MAX_THUMBNAILS, worldCount);
+        renderers = new AgentPointRenderer[shown];
+        labels = new BitmapText[shown];
+        float scale = THUMBNAIL_SIZE / Math.max(mainEngine.getAreaWidth(), mainEngine.getAreaHeight());
+        for (int i = 0; i < shown; i++) {
+            Node thumbnail = new Node("Ensemble_World_" + i);
+            thumbnail.setLocalTranslation(THUMBNAIL_MARGIN + i * (THUMBNAIL_SIZE + THUMBNAIL_MARGIN), THUMBNAIL_MARGIN, 0);
+            thumbnail.attachChild(createBackground());
+
+            renderers[i] = new AgentPointRenderer(app.getAssetManager(), mainEngine.getAreaWidth(), mainEngine.getAreaHeight());
+            renderers[i].setPointSize(THUMBNAIL_POINT_SIZE);
+            Node world = new Node("Ensemble_World_Points_" + i);
+            world.attachChild(renderers[i].getGeometry());
+            // O mundo é centrado na origem; a miniatura tem a origem no canto inferior esquerdo
+            world.setLocalScale(scale);
+            world.setLocalTranslation(THUMBNAIL_SIZE / 2f, THUMBNAIL_SIZE / 2f, 1f);
+            thumbnail.attachChild(world);
+
+            labels[i] = new BitmapText(font);
+            labels[i].setSize(textSize);
+            labels[i].setLocalTranslation(4f, THUMBNAIL_SIZE - 2f, 2f);
+            thumbnail.attachChild(labels[i]);
+            thumbnailsNode.attachChild(thumbnail);
+        }
+        summaryText = new BitmapText(font);
+        summaryText.setSize(textSize);
+        summaryText.setLocalTranslation(THUMBNAIL_MARGIN, THUMBNAIL_MARGIN + THUMBNAIL_SIZE + textSize + 4f, 0);
+        thumbnailsNode.attachChild(summaryText);
+
+        mainEngine.addListener(this);
+        resetWorlds();
+    }
+
+    private Geometry createBackground() {
+        Geometry background = new Geometry("Ensemble_Background", new Quad(THUMBNAIL_SIZE, THUMBNAIL_SIZE));
+        Material mat = new Material(app.getAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+        mat.setColor("Color", new ColorRGBA(0f, 0f, 0f, 0.6f));
+        mat.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Alpha);
+        background.setMaterial(mat);
+        background.setQueueBucket(RenderQueue.Bucket.Gui);
+        return background;
+    }
+
+    /**
+     * Reseta os mundos com a configuração atual da simulação principal.
+     */
+    private void resetWorlds() {
+        SimulationEngine mainEngine = main.getEngine();
+        SimulationRandom seeds = new SimulationRandom(mainEngine.getCurrentSeed());
+        for (int i = 0; i < host.size(); i++) {
+            SimulationEngine world = host.getWorld(i);
+            world.setMaxAgentsPerFaction(mainEngine.getMaxAgentsPerFaction());
+            world.setControlTuning(AgentStore.GUARANI, mainEngine.getControlTuning(AgentStore.GUARANI));
+            world.setControlTuning(AgentStore.JESUIT, mainEngine.getControlTuning(AgentStore.JESUIT));
+            world.setSeed(seeds.nextLong());
+            world.reset(mainEngine.getInitialGuaraniCount(), mainEngine.getInitialJesuitCount(), mainEngine.getMaxLoops());
+        }
+        clock.reset();
+        timeSinceLabels = Float.MAX_VALUE;
+    }
+
+    @Override
+    public void onReset() {
+        // Chamado dentro do reset do motor principal, antes dos agentes novos: a configuração
+        // (semente, populações, limites) já é a nova
+        if (host != null) resetWorlds();
+    }
+
+    @Override
+    public void update(float tpf) {
+        SimulationAppState ui = main.getUiAppStateReference();
+        boolean paused = ui != null && ui.isPaused();
+        if (paused) {
+            clock.reset();
+        } else {
+            float speed = ui != null ? ui.getSimulationSpeed() : 1f;
+            int ticks = clock.consumeTicks(tpf, speed, MAX_TICKS_PER_FRAME);
+            try {
+                host.stepAll(ticks, clock.getTickSeconds());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IllegalStateException e) {
+                System.err.println("ERRO: " + e.getMessage());
+                setEnabled(false);
+                return;
+            }
+        }
+
+        for (int i = 0; i < renderers.length; i++) {
+            renderers[i].update(host.getWorld(i).getAgentStore());
+        }
+        timeSinceLabels += tpf;
+        if (timeSinceLabels > 0.5f) {
+            updateLabels();
+            timeSinceLabels = 0f;
+        }
+    }
+
+    private void updateLabels() {
+        int guaraniWins = 0, jesuitWins = 0, draws = 0;
+        for (int i = 0; i < host.size(); i++) {
+            SimulationEngine world = host.getWorld(i);
+            if (!world.isFinished()) continue;
+            String winner = world.determineWinner();
+            if (winner.startsWith("Guarani")) guaraniWins++;
+            else if (winner.startsWith("Jesuita")) jesuitWins++;
+            else draws++;
+        }
+        for (int i = 0; i < labels.length; i++) {
+            SimulationEngine world = host.getWorld(i);
+            labels[i].setText("Mundo " + (i + 1) + ": G " + world.getActiveGuaraniCount() + " x J " + world.getActiveJesuitCount()
+                    + (world.isFinished() ? " - " + world.determineWinner() : " (loop " + world.getCurrentLoop() + ")"));
+        }
+        summaryText.setText("Conjunto: " + host.size() + " mundos em " + host.getThreads() + " threads, "
+                + host.runningCount() + " rodando - vitórias G " + guaraniWins + ", J " + jesuitWins + ", empates " + draws);
+    }
+
+    public EnsembleHost getHost() { return host; }
+
+    @Override
+    protected void cleanup(Application app) {
+        main.getEngine().removeListener(this);
+        host.close();
+    }
+
+    @Override
+    protected void onEnable() {
+        app.getGuiNode().attachChild(thumbnailsNode);
+    }
+
+    @Override
+    protected void onDisable() {
+        thumbnailsNode.removeFromParent();
+    }
+}
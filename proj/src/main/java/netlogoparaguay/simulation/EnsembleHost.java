@@ -0,0 +1,110 @@
+package netlogoparaguay.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Roda vários mundos independentes ({@link SimulationEngine}) na mesma JVM, em um pool de
+ * threads compartilhado: o código já compilado pelo JIT e os assets são aproveitados por todo
+ * o conjunto, em vez de cada execução pagar a inicialização de uma JVM nova.
+ *
+ * Os mundos avançam em lotes: {@link #stepAll(int, float)} dá a cada mundo não terminado
+ * o mesmo número de ticks, em paralelo, e só retorna quando todos terminaram o lote. Assim,
+ * entre um lote e outro, a thread que chama pode ler qualquer mundo sem sincronização
+ * (ex.: para desenhar miniaturas). Cada mundo só é tocado por uma thread por vez, e a fase de
+ * decisão de cada um roda em série (o paralelismo é entre mundos).
+ */
+public class EnsembleHost implements AutoCloseable {
+
+    private final ExecutorService pool;
+    private final int threads;
+    private final List<SimulationEngine> worlds = new ArrayList<>();
+    private final List<Callable<Void>> batch = new ArrayList<>();
+
+    public EnsembleHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EnsembleHost(int threads) {
+        this.threads = Math.max(1, threads);
+        AtomicInteger count = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread t = new Thread(r, "ensemble-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Adiciona um mundo ao conjunto. Não deve ser chamado durante um {@link #stepAll}.
+     * @return O índice do mundo.
+     */
+    public int addWorld(SimulationEngine world) {
+        world.setParallelDecide(false);
+        worlds.add(world);
+        return worlds.size() - 1;
+    }
+
+    /**
+     * Avança cada mundo não terminado {@code ticks} ticks (ou até terminar), em paralelo.
+     * @return Quantos mundos ainda não terminaram.
+     * @throws IllegalStateException se algum mundo lançar uma exceção durante o lote.
+     */
+    public int stepAll(int ticks, float dt) throws InterruptedException {
+        if (ticks <= 0) return runningCount();
+        batch.clear();
+        for (int i = 0; i < worlds.size(); i++) {
+            SimulationEngine world = worlds.get(i);
+            if (world.isFinished()) continue;
+            batch.add(() -> {
+                for (int t = 0; t < ticks && !world.isFinished(); t++) {
+                    world.step(dt);
+                }
+                return null;
+            });
+        }
+        if (batch.isEmpty()) return 0;
+
+        List<Future<Void>> futures = pool.invokeAll(batch);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Um mundo do conjunto falhou: " + e.getCause(), e.getCause());
+            }
+        }
+        return runningCount();
+    }
+
+    /**
+     * Roda todos os mundos até o fim, em lotes de {@code batchTicks} ticks.
+     */
+    public void runToCompletion(int batchTicks, float dt) throws InterruptedException {
+        while (stepAll(batchTicks, dt) > 0) {
+            // Os lotes só servem de ponto de sincronização; nada a fazer entre eles
+        }
+    }
+
+    public int runningCount() {
+        int running = 0;
+        for (int i = 0; i < worlds.size(); i++) {
+            if (!worlds.get(i).isFinished()) running++;
+        }
+        return running;
+    }
+
+    public SimulationEngine getWorld(int index) { return worlds.get(index); }
+    public int size() { return worlds.size(); }
+    public int getThreads() { return threads; }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,93 @@
+package netlogoparaguay.simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import netlogoparaguay.replay.RunRecorder;
+
+/**
+ * Executa uma simulação sem janela nem contexto gráfico, o mais rápido possível,
+ * e imprime o resultado. Útil em máquinas de CI sem display.
+ *
+ * Uso: HeadlessSimulation [guaranis] [jesuitas] [maxLoops] [dt] [maxPorFaccao] [semente] [arquivoDeGravacao]
+ *                           [arquivoDeCheckpoint] [csvDeMetricas]
+ * (use "-" como semente para sortear uma nova, e como arquivo para pular aquela saída)
+ *
+ * Com um arquivo de checkpoint, o estado é salvo nele periodicamente; se o arquivo já existir,
+ * a execução continua dele em vez de começar do zero (ex.: depois de uma queda).
+ */
+public class HeadlessSimulation {
+
+    public static void main(String[] args) throws IOException {
+        int guaranis = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int jesuits = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int maxLoops = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        float dt = args.length > 3 ? Float.parseFloat(args[3]) : SimulationClock.DEFAULT_TICK_SECONDS;
+        int maxPerFaction = args.length > 4 ? Integer.parseInt(args[4]) : SimulationEngine.DEFAULT_MAX_AGENTS_PER_FACTION;
+        Long seed = args.length > 5 && !"-".equals(args[5]) ? Long.valueOf(args[5]) : null;
+        String recordPath = args.length > 6 && !"-".equals(args[6]) ? args[6] : null;
+        Path checkpointPath = args.length > 7 && !"-".equals(args[7]) ? Paths.get(args[7]) : null;
+        Path metricsPath = args.length > 8 && !"-".equals(args[8]) ? Paths.get(args[8]) : null;
+
+        if (maxLoops <= 0) {
+            System.err.println("maxLoops deve ser positivo para uma execução headless.");
+            return;
+        }
+
+        SimulationEngine engine = new SimulationEngine();
+        engine.setMaxAgentsPerFaction(maxPerFaction);
+        engine.setSeed(seed);
+        if (checkpointPath != null && Files.exists(checkpointPath)) {
+            CheckpointManager.restore(engine, checkpointPath);
+            System.out.println("Continuando do checkpoint " + checkpointPath + " (loop " + engine.getCurrentLoop() + ")");
+        } else {
+            engine.reset(guaranis, jesuits, maxLoops);
+        }
+        CheckpointManager checkpoints = null;
+        if (checkpointPath != null) {
+            checkpoints = new CheckpointManager(engine, checkpointPath, CheckpointManager.DEFAULT_INTERVAL_TICKS);
+            engine.addListener(checkpoints);
+        }
+
+        MetricsRecorder metrics = null;
+        if (metricsPath != null) {
+            metrics = new MetricsRecorder(engine);
+            metrics.startCsvStream(metricsPath);
+            engine.addListener(metrics);
+        }
+
+        RunRecorder recorder = null;
+        if (recordPath != null) {
+            recorder = new RunRecorder(engine, Paths.get(recordPath), dt);
+            engine.addListener(recorder);
+        }
+
+        long start = System.nanoTime();
+        while (!engine.isFinished()) {
+            engine.step(dt);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (metrics != null) {
+            engine.removeListener(metrics);
+            metrics.stopCsvStream();
+            System.out.println("Métricas: " + metricsPath);
+        }
+        if (checkpoints != null) {
+            engine.removeListener(checkpoints);
+            checkpoints.close();
+        }
+        if (recorder != null) {
+            engine.removeListener(recorder);
+            recorder.close();
+            System.out.println("Gravação: " + recordPath);
+        }
+
+        System.out.println("Semente: " + engine.getCurrentSeed());
+        System.out.println("Ticks: " + engine.getCurrentLoop());
+        System.out.println("Guaranis: " + engine.getActiveGuaraniCount() + ", Jesuitas: " + engine.getActiveJesuitCount());
+        System.out.println("Vencedor: " + engine.determineWinner());
+        System.out.printf("Tempo: %.3fs (%.0f ticks/s)%n", seconds, engine.getCurrentLoop() / Math.max(seconds, 1e-9));
+    }
+}
@@ -0,0 +1,366 @@
+package netlogoparaguay.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import netlogoparaguay.agents.Controls.Agent.Agent;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+
+/**
+ * Série temporal das métricas da simulação, uma linha por tick, em ring buffers de tipos
+ * primitivos (sem boxing nem alocação por tick). Guarda as últimas {@code capacity} linhas;
+ * as mais antigas são sobrescritas. Opcionalmente cada linha também é gravada em um CSV
+ * assim que fica definitiva, para execuções mais longas que a janela do buffer.
+ *
+ * Contagens e médias vêm de uma passada sobre o {@link AgentStore} no fim do tick;
+ * nascimentos, mortes e abates são contados pelos eventos do motor durante o tick.
+ * Mudanças feitas entre ticks (reset, botões de adicionar/remover) só marcam a última
+ * linha como desatualizada; {@link #refresh()} a recalcula quando alguém for ler.
+ */
+public class MetricsRecorder implements SimulationListener {
+
+    public static final int DEFAULT_CAPACITY = 36_000;
+
+    /**
+     * Colunas gravadas a cada tick. As médias são por facção (0 sem agentes vivos). Nascimentos
+     * e mortes contam só o que acontece dentro dos ticks; os botões de adicionar/remover não entram.
+     */
+    public enum Metric {
+        LOOP("loop", false),
+        GUARANIS("guaranis", false),
+        JESUITS("jesuits", false),
+        GUARANI_MEAN_STRENGTH("guaraniMeanStrength", true),
+        JESUIT_MEAN_STRENGTH("jesuitMeanStrength", true),
+        GUARANI_MEAN_VITALITY("guaraniMeanVitality", true),
+        JESUIT_MEAN_VITALITY("jesuitMeanVitality", true),
+        GUARANI_MEAN_SPEED("guaraniMeanSpeed", true),
+        JESUIT_MEAN_SPEED("jesuitMeanSpeed", true),
+        RESOURCES_ON_MAP("resourcesOnMap", false),
+        BIRTHS("births", false),
+        DEATHS("deaths", false),
+        GUARANI_KILLS("guaraniKills", false),
+        JESUIT_KILLS("jesuitKills", false);
+
+        private final String column;
+        private final boolean floatValued;
+        // Linha deste metric em intSeries ou floatSeries
+        private int seriesIndex;
+
+        Metric(String column, boolean floatValued) {
+            this.column = column;
+            this.floatValued = floatValued;
+        }
+
+        public String getColumn() { return column; }
+        public boolean isFloatValued() { return floatValued; }
+
+        private static final Metric[] ALL = values();
+        private static final int INT_COUNT;
+        private static final int FLOAT_COUNT;
+
+        static {
+            int ints = 0;
+            int floats = 0;
+            for (Metric m : ALL) {
+                m.seriesIndex = m.floatValued ? floats++ : ints++;
+            }
+            INT_COUNT = ints;
+            FLOAT_COUNT = floats;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.ALL;
+
+    private final SimulationEngine engine;
+    private final int capacity;
+    private final int[][] intSeries;
+    private final float[][] floatSeries;
+    // Posição da próxima linha e quantas linhas válidas existem
+    private int head = 0;
+    private int size = 0;
+    // Incrementado em cada onReset, para quem lê a série perceber uma nova execução
+    private int resetCount = 0;
+
+    // Loop da última linha gravada; eventos com o motor em outro loop acontecem dentro de um tick
+    private int lastRecordedLoop = 0;
+    private boolean latestStale = false;
+
+    private int pendingBirths;
+    private int pendingDeaths;
+    private int pendingGuaraniKills;
+    private int pendingJesuitKills;
+
+    // Somas por facção da passada de record(), reaproveitadas a cada tick
+    private final long[] strengthSum = new long[2];
+    private final long[] vitalitySum = new long[2];
+    private final long[] speedSum = new long[2];
+
+    private BufferedWriter csv;
+    private final StringBuilder csvLine = new StringBuilder(160);
+
+    public MetricsRecorder(SimulationEngine engine) {
+        this(engine, DEFAULT_CAPACITY);
+    }
+
+    public MetricsRecorder(SimulationEngine engine, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity deve ser positiva: " + capacity);
+        }
+        this.engine = engine;
+        this.capacity = capacity;
+        this.intSeries = new int[Metric.INT_COUNT][capacity];
+        this.floatSeries = new float[Metric.FLOAT_COUNT][capacity];
+        this.lastRecordedLoop = engine.getCurrentLoop();
+        this.latestStale = true;
+    }
+
+    // --- Eventos do motor ---
+
+    @Override
+    public void onReset() {
+        resetCount++;
+        flushLatestToCsv();
+        head = 0;
+        size = 0;
+        lastRecordedLoop = engine.getCurrentLoop();
+        latestStale = true;
+        pendingBirths = pendingDeaths = pendingGuaraniKills = pendingJesuitKills = 0;
+    }
+
+    @Override
+    public void onAgentAdded(Agent agent) {
+        if (insideTick()) {
+            pendingBirths++;
+        } else {
+            latestStale = true;
+        }
+    }
+
+    @Override
+    public void onAgentRemoved(Agent agent) {
+        if (insideTick()) {
+            // Durante o tick só morre quem foi abatido pela outra facção. Remoções pelo botão,
+            // fora do tick, não contam como mortes, assim como adições fora do tick não são nascimentos
+            pendingDeaths++;
+            if (agent.getFaction() == AgentStore.GUARANI) {
+                pendingJesuitKills++;
+            } else {
+                pendingGuaraniKills++;
+            }
+        } else {
+            latestStale = true;
+        }
+    }
+
+    @Override
+    public void onTickEnd(int loop) {
+        record(loop);
+    }
+
+    private boolean insideTick() {
+        return engine.getCurrentLoop() != lastRecordedLoop;
+    }
+
+    // --- Gravação ---
+
+    /**
+     * Recalcula a última linha se o mundo mudou entre ticks (ex.: logo após um reset ou
+     * depois dos botões de adicionar/remover agentes). Custa uma passada no store.
+     */
+    public void refresh() {
+        if (latestStale) {
+            record(engine.getCurrentLoop());
+        }
+    }
+
+    private void record(int loop) {
+        int row;
+        if (size > 0 && intAt(Metric.LOOP, size - 1) == loop) {
+            // Mesmo loop: atualiza a linha em vez de criar outra
+            row = (head - 1 + capacity) % capacity;
+        } else {
+            flushLatestToCsv();
+            row = head;
+            head = (head + 1) % capacity;
+            if (size < capacity) size++;
+            setInt(Metric.BIRTHS, row, 0);
+            setInt(Metric.DEATHS, row, 0);
+            setInt(Metric.GUARANI_KILLS, row, 0);
+            setInt(Metric.JESUIT_KILLS, row, 0);
+        }
+
+        AgentStore store = engine.getAgentStore();
+        long[] strength = strengthSum;
+        long[] vitality = vitalitySum;
+        long[] speed = speedSum;
+        for (int f = 0; f < 2; f++) {
+            strength[f] = vitality[f] = speed[f] = 0;
+        }
+        for (int slot = 0, n = store.size(); slot < n; slot++) {
+            if (store.isDead(slot)) continue;
+            int f = store.getFaction(slot);
+            strength[f] += store.getStrength(slot);
+            vitality[f] += store.getVitality(slot);
+            speed[f] += store.getSpeedPoints(slot);
+        }
+        int guaranis = store.getAliveCount(AgentStore.GUARANI);
+        int jesuits = store.getAliveCount(AgentStore.JESUIT);
+
+        setInt(Metric.LOOP, row, loop);
+        setInt(Metric.GUARANIS, row, guaranis);
+        setInt(Metric.JESUITS, row, jesuits);
+        setFloat(Metric.GUARANI_MEAN_STRENGTH, row, mean(strength[AgentStore.GUARANI], guaranis));
+        setFloat(Metric.JESUIT_MEAN_STRENGTH, row, mean(strength[AgentStore.JESUIT], jesuits));
+        setFloat(Metric.GUARANI_MEAN_VITALITY, row, mean(vitality[AgentStore.GUARANI], guaranis));
+        setFloat(Metric.JESUIT_MEAN_VITALITY, row, mean(vitality[AgentStore.JESUIT], jesuits));
+        setFloat(Metric.GUARANI_MEAN_SPEED, row, mean(speed[AgentStore.GUARANI], guaranis));
+        setFloat(Metric.JESUIT_MEAN_SPEED, row, mean(speed[AgentStore.JESUIT], jesuits));
+        setInt(Metric.RESOURCES_ON_MAP, row, engine.getResourceManager().getResourcesOnMap());
+        addInt(Metric.BIRTHS, row, pendingBirths);
+        addInt(Metric.DEATHS, row, pendingDeaths);
+        addInt(Metric.GUARANI_KILLS, row, pendingGuaraniKills);
+        addInt(Metric.JESUIT_KILLS, row, pendingJesuitKills);
+        pendingBirths = pendingDeaths = pendingGuaraniKills = pendingJesuitKills = 0;
+
+        lastRecordedLoop = loop;
+        latestStale = false;
+    }
+
+    private static float mean(long sum, int count) {
+        return count > 0 ? (float) sum / count : 0f;
+    }
+
+    private void setInt(Metric m, int row, int value) { intSeries[m.seriesIndex][row] = value; }
+    private void addInt(Metric m, int row, int value) { intSeries[m.seriesIndex][row] += value; }
+    private void setFloat(Metric m, int row, float value) { floatSeries[m.seriesIndex][row] = value; }
+
+    private int physicalRow(int index) {
+        return (head - size + index + capacity) % capacity;
+    }
+
+    // --- Leitura ---
+
+    /** Quantas linhas estão no buffer (no máximo a capacidade). */
+    public int size() { return size; }
+    /** Quantos resets (incluindo restaurações de checkpoint) a série já viu; muda a cada nova execução. */
+    public int getResetCount() { return resetCount; }
+    public int getCapacity() { return capacity; }
+
+    /**
+     * Valor inteiro de uma linha.
+     * @param index 0 = linha mais antiga no buffer, {@code size()-1} = mais recente.
+     */
+    public int intAt(Metric metric, int index) {
+        if (metric.floatValued) throw new IllegalArgumentException(metric + " é float");
+        return intSeries[metric.seriesIndex][physicalRow(index)];
+    }
+
+    /** Valor de uma linha como float (vale para qualquer métrica). */
+    public float valueAt(Metric metric, int index) {
+        int row = physicalRow(index);
+        return metric.floatValued ? floatSeries[metric.seriesIndex][row] : intSeries[metric.seriesIndex][row];
+    }
+
+    /** Valor da linha mais recente, ou 0 se o buffer estiver vazio. */
+    public float latest(Metric metric) {
+        return size > 0 ? valueAt(metric, size - 1) : 0f;
+    }
+
+    public int latestInt(Metric metric) {
+        return size > 0 ? intAt(metric, size - 1) : 0;
+    }
+
+    /**
+     * Copia as últimas {@code count} linhas de uma métrica para {@code dst}, da mais antiga para a mais recente.
+     * @return Quantos valores foram copiados (limitado pelo tamanho do buffer e de dst).
+     */
+    public int copyLatest(Metric metric, int count, float[] dst) {
+        int n = Math.min(Math.min(count, size), dst.length);
+        int first = size - n;
+        for (int i = 0; i < n; i++) {
+            dst[i] = valueAt(metric, first + i);
+        }
+        return n;
+    }
+
+    // --- CSV ---
+
+    /**
+     * Passa a gravar cada linha definitiva no CSV (substitui um arquivo já aberto).
+     * As linhas que já estão no buffer não são gravadas; para elas use {@link #exportCsv}.
+     */
+    public void startCsvStream(Path file) throws IOException {
+        stopCsvStream();
+        csv = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writeHeader(csv);
+    }
+
+    /** Grava a linha mais recente pendente e fecha o CSV em andamento. */
+    public void stopCsvStream() {
+        if (csv == null) return;
+        try {
+            if (size > 0) {
+                writeRow(csv, size - 1);
+            }
+            csv.close();
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao fechar o CSV de métricas: " + e.getMessage());
+        }
+        csv = null;
+    }
+
+    /**
+     * Grava todas as linhas do buffer em um CSV novo.
+     */
+    public void exportCsv(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeHeader(out);
+            for (int i = 0; i < size; i++) {
+                writeRow(out, i);
+            }
+        }
+    }
+
+    // Chamado quando a linha mais recente deixa de poder mudar (outra linha vai começar)
+    private void flushLatestToCsv() {
+        if (csv == null || size == 0) return;
+        try {
+            writeRow(csv, size - 1);
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao gravar o CSV de métricas, gravação interrompida: " + e.getMessage());
+            try {
+                csv.close();
+            } catch (IOException ignored) {
+                // já está com erro
+            }
+            csv = null;
+        }
+    }
+
+    private static void writeHeader(BufferedWriter out) throws IOException {
+        StringBuilder header = new StringBuilder();
+        for (Metric m : METRICS) {
+            if (header.length() > 0) header.append(',');
+            header.append(m.column);
+        }
+        out.write(header.toString());
+        out.newLine();
+    }
+
+    private void writeRow(BufferedWriter out, int index) throws IOException {
+        csvLine.setLength(0);
+        int row = physicalRow(index);
+        for (Metric m : METRICS) {
+            if (csvLine.length() > 0) csvLine.append(',');
+            if (m.floatValued) {
+                csvLine.append(floatSeries[m.seriesIndex][row]);
+            } else {
+                csvLine.append(intSeries[m.seriesIndex][row]);
+            }
+        }
+        out.append(csvLine);
+        out.newLine();
+    }
+}
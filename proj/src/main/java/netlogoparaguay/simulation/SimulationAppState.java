@@ -3,6 +3,7 @@ package netlogoparaguay.simulation;
 import com.jme3.app.Application;
 import com.jme3.app.state.BaseAppState;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class SimulationAppState extends BaseAppState {
@@ -10,13 +11,21 @@ public class SimulationAppState extends BaseAppState {
     private int guaraniCountSetting = 5;
     private int jesuitCountSetting = 5;
     private int maxLoopsSetting = 10000;
+    // Teto de agentes vivos por facção (nascimentos e botões +G/+J param nele)
+    private int maxAgentsPerFactionSetting = SimulationEngine.DEFAULT_MAX_AGENTS_PER_FACTION;
+    // Semente mestra da simulação; null sorteia uma nova a cada reset
+    private Long masterSeedSetting = null;
+    // Maior população por facção que a UI permite configurar
+    public static final int MAX_POPULATION_SETTING = 100_000;
     private boolean paused = true;
 
     // [CORRIGIDO] O tipo da variável foi corrigido para SimulationAppStates (com 's').
     private SimulationAppStates simulationEngineRef;
 
     private float simulationSpeed = 1.0f;
-    private final List<Float> speedLevels = Arrays.asList(0.25f, 0.5f, 1.0f, 2.0f, 4.0f, 8.0f);
+    // Velocidades oferecidas pelos botões +Vel/-Vel (também usadas no benchmark de escala)
+    public static final List<Float> SPEED_LEVELS = Collections.unmodifiableList(Arrays.asList(0.25f, 0.5f, 1.0f, 2.0f, 4.0f, 8.0f));
+    private final List<Float> speedLevels = SPEED_LEVELS;
     private int currentSpeedLevelIndex = 2;
 
     public void increaseMaxLoops(int amount) {
@@ -38,11 +47,30 @@ public class SimulationAppState extends BaseAppState {
     public int getGuaraniCountSetting() { return guaraniCountSetting; }
     public int getJesuitCountSetting() { return jesuitCountSetting; }
     public int getMaxLoopsSetting() { return maxLoopsSetting; }
+    public int getMaxAgentsPerFactionSetting() { return maxAgentsPerFactionSetting; }
+    public Long getMasterSeedSetting() { return masterSeedSetting; }
     public boolean isPaused() { return paused; }
     public float getSimulationSpeed() { return simulationSpeed; }
 
-    public void setGuaraniCount(int count) { this.guaraniCountSetting = Math.max(0, count); }
-    public void setJesuitCount(int count) { this.jesuitCountSetting = Math.max(0, count); }
+    public void setGuaraniCount(int count) { this.guaraniCountSetting = Math.min(MAX_POPULATION_SETTING, Math.max(0, count)); }
+    public void setJesuitCount(int count) { this.jesuitCountSetting = Math.min(MAX_POPULATION_SETTING, Math.max(0, count)); }
+
+    /**
+     * Define a semente mestra usada nos próximos resets (null = sortear a cada reset).
+     */
+    public void setMasterSeed(Long seed) {
+        this.masterSeedSetting = seed;
+        if (simulationEngineRef != null) {
+            simulationEngineRef.updateMasterSeedSetting(seed);
+        }
+    }
+
+    public void setMaxAgentsPerFaction(int max) {
+        this.maxAgentsPerFactionSetting = Math.min(MAX_POPULATION_SETTING, Math.max(1, max));
+        if (simulationEngineRef != null) {
+            simulationEngineRef.updateMaxAgentsPerFactionSetting(this.maxAgentsPerFactionSetting);
+        }
+    }
 
     public void setMaxLoops(int loops) {
         this.maxLoopsSetting = Math.max(1, loops);
@@ -85,6 +113,7 @@ public class SimulationAppState extends BaseAppState {
     public int getCurrentGuaraniCount() { return (simulationEngineRef != null) ? simulationEngineRef.getActiveGuaraniCount() : 0; }
     public int getCurrentJesuitCount() { return (simulationEngineRef != null) ? simulationEngineRef.getActiveJesuitCount() : 0; }
     public int getCurrentLoop() { return (simulationEngineRef != null) ? simulationEngineRef.getCurrentSimulationLoop() : 0; }
+    public MetricsRecorder getMetrics() { return (simulationEngineRef != null) ? simulationEngineRef.getMetrics() : null; }
     public String getWinner() { return (simulationEngineRef != null) ? simulationEngineRef.determineWinner() : "-"; }
 
     public void resetSimulation() {
@@ -4,67 +4,97 @@ import com.jme3.app.Application;
 import com.jme3.app.SimpleApplication;
 import com.jme3.app.state.BaseAppState;
 import com.jme3.asset.AssetManager;
-import com.jme3.math.FastMath;
-import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.instancing.InstancedNode;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
 import netlogoparaguay.agents.Controls.Agent.Agent;
-import netlogoparaguay.agents.Controls.Agent.Guarani;
-import netlogoparaguay.agents.Controls.Agent.Jesuit;
+import netlogoparaguay.agents.Controls.Agent.AgentPointRenderer;
+import netlogoparaguay.agents.Controls.Agent.AgentView;
+import netlogoparaguay.agents.Controls.Agent.AgentVisuals;
+import netlogoparaguay.replay.RunRecorder;
+import netlogoparaguay.resources.Resource;
 import netlogoparaguay.resources.ResourceManager;
+import netlogoparaguay.resources.ResourceVisuals;
+import netlogoparaguay.utils.SnapshotBuffer;
 
-public class SimulationAppStates extends BaseAppState {
+/**
+ * Ponte entre o {@link SimulationEngine} e o jMonkeyEngine.
+ * A cada frame avança o motor (respeitando pausa e velocidade da UI) e espelha
+ * o estado dos agentes e recursos nos Spatials da cena. Não contém regras da simulação.
+ */
+public class SimulationAppStates extends BaseAppState implements SimulationListener {
 
     private SimpleApplication app;
     private AssetManager assetManager;
     private Node simulationRootNode;
-    private ResourceManager resourceManager;
+    private ResourceVisuals resourceVisuals;
+    private AgentVisuals agentVisuals;
+
+    // Todos os agentes ficam neste nó: uma draw call por facção, independente da população.
+    // Novas instâncias só entram no desenho após instance(), chamado uma vez por frame.
+    private InstancedNode agentInstancesNode;
+    private boolean agentInstancesDirty = false;
+
+    // Alternativa sem Spatial por agente: todos os agentes como pontos de uma única malha.
+    // Usada no modo de grande população do motor, se habilitada.
+    private AgentPointRenderer agentPointRenderer;
+    private boolean pointRenderingEnabled = true;
+    private boolean usingPointRenderer = false;
+    private boolean agentPointsDirty = false;
+
+    private final SimulationEngine engine;
+    private final SimulationClock clock = new SimulationClock();
+    // Série temporal por tick lida pelo StatsUpdater
+    private final MetricsRecorder metrics;
+
+    // Espelhos visuais dos agentes e recursos do motor
+    private final List<AgentView> agentViews = new ArrayList<>();
+    private final Map<Agent, AgentView> agentViewByAgent = new IdentityHashMap<>();
+    private final Map<Resource, Spatial> resourceSpatials = new IdentityHashMap<>();
 
-    private List<Guarani> guaranis = new ArrayList<>();
-    private List<Jesuit> jesuits = new ArrayList<>();
-
-    // [ALTERADO] Valores iniciais removidos daqui para evitar confusão.
-    // A única fonte de verdade para as configurações iniciais agora é a classe SimulationAppState.
-    private int initialGuaraniCount;
-    private int initialJesuitCount;
-    private int maxLoops;
-
-    private int currentLoop = 0;
-    private boolean internalPauseSignal = false;
     private SimulationAppState uiAppStateRef;
+    private RunRecorder recorder;
+    private CheckpointManager checkpointManager;
 
-    private final int res_capacityPerType = 20;
-    private final int res_maxOnMapPerType = 8;
-    private final float res_respawnInterval = 10.0f;
-
-    public static final float SIMULATION_AREA_WIDTH = 30f;
-    public static final float SIMULATION_AREA_HEIGHT = 30f;
+    public SimulationAppStates() {
+        this(new SimulationEngine());
+    }
 
-    public final Random random = new Random();
+    /**
+     * Ponte para um motor já criado (ex.: com um tamanho de mundo próprio). Cada motor deve
+     * ter no máximo uma ponte.
+     */
+    public SimulationAppStates(SimulationEngine engine) {
+        this.engine = engine;
+        this.metrics = new MetricsRecorder(engine);
+    }
 
     @Override
     protected void initialize(Application app) {
         this.app = (SimpleApplication) app;
         this.assetManager = this.app.getAssetManager();
+        this.resourceVisuals = new ResourceVisuals(this.assetManager);
+        this.agentVisuals = new AgentVisuals(this.assetManager);
+        this.agentPointRenderer = new AgentPointRenderer(this.assetManager, engine.getAreaWidth(), engine.getAreaHeight());
 
         this.simulationRootNode = new Node("SimulationEngine_RootNode");
         this.app.getRootNode().attachChild(this.simulationRootNode);
+        this.agentInstancesNode = new InstancedNode("SimulationEngine_Agents");
+        this.simulationRootNode.attachChild(this.agentInstancesNode);
 
-        this.resourceManager = new ResourceManager(
-                this.assetManager,
-                this.simulationRootNode,
-                res_capacityPerType,
-                res_maxOnMapPerType,
-                res_respawnInterval,
-                SIMULATION_AREA_WIDTH,
-                SIMULATION_AREA_HEIGHT
-        );
+        engine.addListener(this);
+        engine.addListener(metrics);
 
         if (uiAppStateRef != null) {
             // Caminho Padrão: Usa as configurações da UI
+            engine.setMaxAgentsPerFaction(uiAppStateRef.getMaxAgentsPerFactionSetting());
+            engine.setSeed(uiAppStateRef.getMasterSeedSetting());
             resetSimulationWithSettings(
                     uiAppStateRef.getGuaraniCountSetting(),
                     uiAppStateRef.getJesuitCountSetting(),
@@ -81,102 +111,37 @@ public class SimulationAppStates extends BaseAppState {
 
     public void resetSimulationWithSettings(int initialGuaranis, int initialJesuits, int newMaxLoops) {
         System.out.println("Motor: Resetando simulação -> G:" + initialGuaranis + ", J:" + initialJesuits + ", Loops:" + newMaxLoops);
-        this.currentLoop = 0;
-        this.internalPauseSignal = false;
-        this.initialGuaraniCount = initialGuaranis;
-        this.initialJesuitCount = initialJesuits;
-        this.maxLoops = newMaxLoops;
-
-        cleanupAgentsAndResources();
-        createInitialAgents();
-
-        if (resourceManager != null) {
-            resourceManager.resetAndRepopulate();
-        } else {
-            System.err.println("Motor ERRO: ResourceManager é nulo durante o reset!");
-        }
+        engine.reset(initialGuaranis, initialJesuits, newMaxLoops);
+        clock.reset();
+        System.out.println("Motor: Semente da execução: " + engine.getCurrentSeed());
 
         if (uiAppStateRef != null) {
             setSimulationPausedByUi(uiAppStateRef.isPaused());
-        } else {
-            this.internalPauseSignal = true;
         }
         System.out.println("Motor: Reset concluído.");
     }
 
-    private void createInitialAgents() {
-        for (int i = 0; i < initialGuaraniCount; i++) {
-            addAgentToList(new Guarani("Guarani_" + (i + 1), assetManager, this), guaranis);
-        }
-        for (int i = 0; i < initialJesuitCount; i++) {
-            addAgentToList(new Jesuit("Jesuit_" + (i + 1), assetManager, this), jesuits);
-        }
-    }
-
-    private <T extends Agent> void addAgentToList(T agent, List<T> list) {
-        float x = (random.nextFloat() - 0.5f) * (SIMULATION_AREA_WIDTH - 2f);
-        float y = (random.nextFloat() - 0.5f) * (SIMULATION_AREA_HEIGHT - 2f);
-        agent.setLocalTranslation(x, y, 0);
-        list.add(agent);
-        if (simulationRootNode != null) {
-            simulationRootNode.attachChild(agent);
-        } else {
-            System.err.println("ERRO: simulationRootNode é nulo ao tentar adicionar agente " + agent.getName());
-        }
-    }
-
     public Agent dynamicallyAddAgent(String type) {
-        Agent newAgent = null;
-        if ("Guarani".equalsIgnoreCase(type) && guaranis.size() < 50) {
-            newAgent = new Guarani("Guarani_d" + (guaranis.size() + 1), assetManager, this);
-            addAgentToList((Guarani)newAgent, guaranis);
-        } else if ("Jesuit".equalsIgnoreCase(type) && jesuits.size() < 50) {
-            newAgent = new Jesuit("Jesuit_d" + (jesuits.size() + 1), assetManager, this);
-            addAgentToList((Jesuit)newAgent, jesuits);
-        }
-        return newAgent;
+        return engine.dynamicallyAddAgent(type);
     }
 
     public void dynamicallyRemoveAgent(String type) {
-        Agent agentToRemove = null;
-        if ("Guarani".equalsIgnoreCase(type) && !guaranis.isEmpty()) {
-            agentToRemove = guaranis.remove(guaranis.size() - 1);
-        } else if ("Jesuit".equalsIgnoreCase(type) && !jesuits.isEmpty()) {
-            agentToRemove = jesuits.remove(jesuits.size() - 1);
-        }
-        if (agentToRemove != null) {
-            agentToRemove.removeFromParent();
-        }
+        engine.dynamicallyRemoveAgent(type);
     }
 
     @Override
     protected void cleanup(Application app) {
-        cleanupAgentsAndResources();
+        stopRecording();
+        disableCheckpoints();
+        metrics.stopCsvStream();
+        engine.removeListener(metrics);
+        engine.removeListener(this);
+        clearViews();
         if (simulationRootNode != null && simulationRootNode.getParent() != null) {
             this.app.getRootNode().detachChild(simulationRootNode);
         }
     }
 
-    private void cleanupAgentsAndResources() {
-        if (resourceManager != null) {
-            resourceManager.cleanupAllResources();
-        }
-
-        for (Guarani g : guaranis) {
-            g.removeFromParent();
-        }
-        guaranis.clear();
-
-        for (Jesuit j : jesuits) {
-            j.removeFromParent();
-        }
-        jesuits.clear();
-
-        if (simulationRootNode != null) {
-            simulationRootNode.detachAllChildren();
-        }
-    }
-
     @Override
     protected void onEnable() {
         if (simulationRootNode != null) simulationRootNode.setCullHint(Spatial.CullHint.Inherit);
@@ -194,106 +159,221 @@ public class SimulationAppStates extends BaseAppState {
     public void update(float tpf) {
         boolean isPausedByUI = uiAppStateRef != null && uiAppStateRef.isPaused();
 
-        if (internalPauseSignal || isPausedByUI || !isEnabled()) {
+        boolean running = !(engine.isFinished() || isPausedByUI || !isEnabled());
+        if (running) {
+            // A velocidade define quantos ticks de passo fixo rodam neste frame, não o tamanho do passo
+            float speed = uiAppStateRef != null ? uiAppStateRef.getSimulationSpeed() : 1.0f;
+            clock.advance(tpf, speed, engine);
+
+            if (engine.isFinished() && uiAppStateRef != null) {
+                uiAppStateRef.setPaused(true);
+            }
+        } else {
+            // Tempo pausado não é acumulado para depois
+            clock.reset();
+        }
+
+        TickProfiler prof = engine.getProfiler();
+        long syncStart = prof != null ? prof.begin() : 0L;
+
+        // Agentes criados pelo reset ou pelos botões também aparecem com a simulação pausada
+        if (agentInstancesDirty) {
+            agentInstancesNode.instance();
+            agentInstancesDirty = false;
+        }
+        if (running || agentPointsDirty) {
+            syncAgentVisuals(running);
+            agentPointsDirty = false;
+        }
+
+        if (prof != null) prof.lap(TickProfiler.Phase.RENDER_SYNC, syncStart);
+    }
+
+    private void syncAgentVisuals(boolean running) {
+        if (usingPointRenderer || agentPointsDirty) {
+            agentPointRenderer.update(engine.getAgentStore());
+        }
+        if (usingPointRenderer || !running) {
             return;
         }
+        for (int i = 0, n = agentViews.size(); i < n; i++) {
+            agentViews.get(i).syncFromAgent();
+        }
+    }
 
-        float effectiveTpf = tpf * (uiAppStateRef != null ? uiAppStateRef.getSimulationSpeed() : 1.0f);
-        currentLoop++;
+    // --- Espelhamento do motor na cena (SimulationListener) ---
 
-        if (maxLoops > 0 && currentLoop >= maxLoops) {
-            internalPauseSignal = true;
-            if (uiAppStateRef != null) {
-                uiAppStateRef.setPaused(true);
+    @Override
+    public void onReset() {
+        clearViews();
+        usingPointRenderer = pointRenderingEnabled && engine.isLargePopulationMode();
+        if (simulationRootNode != null) {
+            if (usingPointRenderer) {
+                simulationRootNode.attachChild(agentPointRenderer.getGeometry());
+            } else {
+                agentPointRenderer.getGeometry().removeFromParent();
             }
         }
+    }
 
-        if (resourceManager != null) {
-            resourceManager.update(effectiveTpf);
+    @Override
+    public void onAgentAdded(Agent agent) {
+        if (usingPointRenderer) {
+            // Os pontos são lidos direto do AgentStore; só é preciso redesenhar
+            agentPointsDirty = true;
+            return;
         }
+        if (agentInstancesNode == null) {
+            System.err.println("ERRO: agentInstancesNode é nulo ao tentar adicionar agente " + agent.getName());
+            return;
+        }
+        // No modo de grande população cada agente usa uma malha de poucos triângulos
+        AgentView view = agentVisuals.createView(agent, engine.isLargePopulationMode());
+        view.setViewIndex(agentViews.size());
+        agentViews.add(view);
+        agentViewByAgent.put(agent, view);
+        agentInstancesNode.attachChild(view);
+        agentInstancesDirty = true;
+    }
 
-        if (currentLoop > 0 && currentLoop % 50 == 0) {
-            resetMultiplicationFlags();
+    @Override
+    public void onAgentRemoved(Agent agent) {
+        agentPointsDirty |= usingPointRenderer;
+        AgentView view = agentViewByAgent.remove(agent);
+        if (view != null) {
+            // Troca com a última vista em vez de deslocar a lista (O(1) aqui); o detach abaixo ainda
+            // procura a vista entre os filhos do InstancedNode, então cada remoção segue O(n) na cena
+            int index = view.getViewIndex();
+            AgentView last = agentViews.remove(agentViews.size() - 1);
+            if (last != view) {
+                agentViews.set(index, last);
+                last.setViewIndex(index);
+            }
+            view.setViewIndex(-1);
+            view.removeFromParent();
         }
     }
 
-    public void notifyAgentDeath(Agent deadAgent) {
-        if (deadAgent == null) return;
+    @Override
+    public void onResourceSpawned(Resource resource) {
+        if (simulationRootNode == null) return;
+        Spatial spatial = resourceSpatials.computeIfAbsent(resource, r -> resourceVisuals.createSpatial(r.getType()));
+        spatial.setLocalTranslation(resource.getPosition());
+        if (spatial.getParent() == null) {
+            simulationRootNode.attachChild(spatial);
+        }
+    }
 
-        deadAgent.removeFromParent();
+    @Override
+    public void onResourceRemoved(Resource resource) {
+        Spatial spatial = resourceSpatials.get(resource);
+        if (spatial != null) {
+            spatial.removeFromParent();
+        }
+    }
 
-        if (deadAgent instanceof Guarani) {
-            guaranis.remove(deadAgent);
-        } else if (deadAgent instanceof Jesuit) {
-            jesuits.remove(deadAgent);
+    private void clearViews() {
+        agentViews.clear();
+        agentViewByAgent.clear();
+        if (agentInstancesNode != null) {
+            // Um nó novo descarta também as InstancedGeometry geradas pelo instance()
+            agentInstancesNode.removeFromParent();
+            agentInstancesNode = new InstancedNode("SimulationEngine_Agents");
+            simulationRootNode.attachChild(agentInstancesNode);
+            agentInstancesDirty = false;
         }
+        for (Spatial spatial : resourceSpatials.values()) {
+            spatial.removeFromParent();
+        }
+    }
 
-        boolean guaranisRemaining = !guaranis.isEmpty();
-        boolean jesuitsRemaining = !jesuits.isEmpty();
+    // --- Gravação da execução ---
+
+    /**
+     * Passa a gravar a execução no arquivo (substitui uma gravação em andamento).
+     * O log pode ser reproduzido depois com o ReplayAppState.
+     */
+    public void startRecording(Path path) throws IOException {
+        stopRecording();
+        recorder = new RunRecorder(engine, path, clock.getTickSeconds());
+        engine.addListener(recorder);
+        System.out.println("Motor: Gravando execução em " + path);
+    }
 
-        if (currentLoop > 0 && (!guaranisRemaining || !jesuitsRemaining)) {
-            internalPauseSignal = true;
-            if(uiAppStateRef != null) uiAppStateRef.setPaused(true);
+    public void stopRecording() {
+        if (recorder == null) return;
+        engine.removeListener(recorder);
+        try {
+            recorder.close();
+            System.out.println("Motor: Gravação encerrada (" + recorder.getFrameCount() + " ticks).");
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao fechar a gravação: " + e.getMessage());
         }
+        recorder = null;
     }
 
-    private void resetMultiplicationFlags() {
-        for (Guarani g : guaranis) g.resetMultiplicationPossibility();
-        for (Jesuit j : jesuits) j.resetMultiplicationPossibility();
+    public boolean isRecording() { return recorder != null; }
+
+    // --- Checkpoints ---
+
+    /**
+     * Passa a gravar um checkpoint no arquivo a cada {@code intervalTicks} ticks, em segundo plano.
+     */
+    public void enableCheckpoints(Path file, int intervalTicks) {
+        disableCheckpoints();
+        checkpointManager = new CheckpointManager(engine, file, intervalTicks);
+        engine.addListener(checkpointManager);
+        System.out.println("Motor: Checkpoint a cada " + intervalTicks + " ticks em " + file);
     }
 
-    public boolean requestAgentMultiplication(Agent parent) {
-        Agent newAgent = null;
-        float offsetX = (random.nextFloat() - 0.5f) * 2f;
-        float offsetY = (random.nextFloat() - 0.5f) * 2f;
-        Vector3f childPosition = parent.getLocalTranslation().add(offsetX, offsetY, 0);
-
-        childPosition.x = FastMath.clamp(childPosition.x, -SIMULATION_AREA_WIDTH / 2f + 0.5f, SIMULATION_AREA_WIDTH / 2f - 0.5f);
-        childPosition.y = FastMath.clamp(childPosition.y, -SIMULATION_AREA_HEIGHT / 2f + 0.5f, SIMULATION_AREA_HEIGHT / 2f - 0.5f);
-
-        if (parent instanceof Guarani && guaranis.size() < 50) {
-            newAgent = new Guarani("Guarani_c" + (guaranis.size() + 1), assetManager, this);
-            addAgentToList((Guarani)newAgent, guaranis);
-        } else if (parent instanceof Jesuit && jesuits.size() < 50) {
-            newAgent = new Jesuit("Jesuit_c" + (jesuits.size() + 1), assetManager, this);
-            addAgentToList((Jesuit)newAgent, jesuits);
-        }
+    public void disableCheckpoints() {
+        if (checkpointManager == null) return;
+        engine.removeListener(checkpointManager);
+        checkpointManager.close();
+        checkpointManager = null;
+    }
 
-        return newAgent != null;
+    /**
+     * Grava um checkpoint do estado atual agora (de forma síncrona).
+     */
+    public void saveCheckpoint(Path file) throws IOException {
+        SnapshotBuffer buffer = new SnapshotBuffer(64 * 1024);
+        engine.writeSnapshot(buffer);
+        CheckpointManager.write(file, buffer.contents());
+        System.out.println("Motor: Checkpoint do loop " + engine.getCurrentLoop() + " salvo em " + file);
+    }
+
+    /**
+     * Troca a simulação em andamento pelo estado de um checkpoint e continua dali.
+     */
+    public void restoreCheckpoint(Path file) throws IOException {
+        CheckpointManager.restore(engine, file);
+        clock.reset();
+        System.out.println("Motor: Checkpoint restaurado de " + file + " (loop " + engine.getCurrentLoop()
+                + ", semente " + engine.getCurrentSeed() + ")");
+        if (uiAppStateRef != null) {
+            setSimulationPausedByUi(uiAppStateRef.isPaused());
+        }
     }
 
     // --- Getters e Setters ---
 
-    public List<Guarani> getGuaranis() { return guaranis; }
-    public List<Jesuit> getJesuits() { return jesuits; }
-    public ResourceManager getResourceManager() { return resourceManager; }
+    public SimulationEngine getEngine() { return engine; }
+    public MetricsRecorder getMetrics() { return metrics; }
+    public ResourceManager getResourceManager() { return engine.getResourceManager(); }
     public SimulationAppState getUiAppStateReference() { return uiAppStateRef; }
-    public int getActiveGuaraniCount() { return guaranis.size(); }
-    public int getActiveJesuitCount() { return jesuits.size(); }
-    public int getCurrentSimulationLoop() { return currentLoop; }
+    public int getActiveGuaraniCount() { return engine.getActiveGuaraniCount(); }
+    public int getActiveJesuitCount() { return engine.getActiveJesuitCount(); }
+    public int getCurrentSimulationLoop() { return engine.getCurrentLoop(); }
 
     public String determineWinner() {
-        boolean guaranisExist = !guaranis.isEmpty();
-        boolean jesuitsExist = !jesuits.isEmpty();
-
-        if (maxLoops > 0 && currentLoop >= maxLoops && internalPauseSignal) {
-            if (guaranis.size() > jesuits.size()) return "Guarani (Tempo)";
-            if (jesuits.size() > guaranis.size()) return "Jesuita (Tempo)";
-            return "Empate (Tempo)";
-        }
-
-        if (internalPauseSignal) {
-            if (guaranisExist && !jesuitsExist) return "Guarani";
-            if (!guaranisExist && jesuitsExist) return "Jesuita";
-            if (!guaranisExist && !jesuitsExist && currentLoop > 0) return "Empate (Extermínio)";
-        }
-        return "-";
+        return engine.determineWinner();
     }
 
     public void setUiAppStateReference(SimulationAppState uiState) { this.uiAppStateRef = uiState; }
 
     public void setSimulationPausedByUi(boolean pausedFromUi) {
-        if (internalPauseSignal && !pausedFromUi) {
+        if (engine.isFinished() && !pausedFromUi) {
             if (uiAppStateRef != null) {
                 uiAppStateRef.setPaused(true);
             }
@@ -301,5 +381,13 @@ public class SimulationAppStates extends BaseAppState {
         }
     }
 
-    public void updateMaxLoopsSetting(int newMaxLoops) { this.maxLoops = newMaxLoops; }
-}
\ No newline at end of file
+    public void updateMaxLoopsSetting(int newMaxLoops) { engine.setMaxLoops(newMaxLoops); }
+    public void updateMaxAgentsPerFactionSetting(int max) { engine.setMaxAgentsPerFaction(max); }
+    public void updateMasterSeedSetting(Long seed) { engine.setSeed(seed); }
+
+    /**
+     * Liga/desliga o desenho por pontos no modo de grande população. Vale a partir do próximo reset.
+     */
+    public void setPointRenderingEnabled(boolean enabled) { this.pointRenderingEnabled = enabled; }
+    public boolean isUsingPointRenderer() { return usingPointRenderer; }
+}
@@ -0,0 +1,107 @@
+package netlogoparaguay.simulation;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Relógio de passo fixo da simulação.
+ * O tempo de cada frame (multiplicado pela velocidade escolhida na UI) é acumulado, e o
+ * motor avança em ticks de duração fixa enquanto houver tempo acumulado. Assim a velocidade
+ * muda apenas quantos ticks rodam por frame, nunca o tamanho do passo: o resultado não
+ * depende do frame rate e os agentes não "pulam" o alvo em velocidades altas.
+ *
+ * Para não travar a renderização, cada frame tem um orçamento de tempo real; se o motor
+ * não der conta, o atraso acumulado é limitado e a simulação apenas fica mais lenta.
+ */
+public class SimulationClock {
+
+    public static final float DEFAULT_TICK_SECONDS = 1f / 60f;
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 12_000_000L;
+
+    // Frames muito longos (ex.: carregamento, janela arrastada) não viram uma rajada de ticks
+    private static final float MAX_FRAME_SECONDS = 0.25f;
+    // Quantos ticks de atraso podem ficar acumulados quando o orçamento estoura
+    private static final int MAX_BACKLOG_TICKS = 8;
+
+    private final float tickSeconds;
+    private final long frameBudgetNanos;
+    private float accumulator = 0f;
+
+    public SimulationClock() {
+        this(DEFAULT_TICK_SECONDS, DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    public SimulationClock(float tickSeconds, long frameBudgetNanos) {
+        if (tickSeconds <= 0) {
+            throw new IllegalArgumentException("tickSeconds deve ser positivo: " + tickSeconds);
+        }
+        this.tickSeconds = tickSeconds;
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Acumula o tempo do frame e executa os ticks devidos no motor.
+     * @param frameSeconds Duração real do frame (tpf).
+     * @param speed Multiplicador de velocidade da simulação.
+     * @param engine O motor a avançar.
+     * @return Quantos ticks foram executados neste frame.
+     */
+    public int advance(float frameSeconds, float speed, SimulationEngine engine) {
+        return advance(frameSeconds, speed, engine, null);
+    }
+
+    /**
+     * Igual a {@link #advance(float, float, SimulationEngine)}, informando a duração de cada tick.
+     * @param tickNanos Recebe o tempo real (ns) gasto em cada tick, ou null.
+     */
+    public int advance(float frameSeconds, float speed, SimulationEngine engine, LongConsumer tickNanos) {
+        accumulator += Math.min(frameSeconds, MAX_FRAME_SECONDS) * speed;
+
+        long start = System.nanoTime();
+        long deadline = start + frameBudgetNanos;
+        int ticks = 0;
+        while (accumulator >= tickSeconds && !engine.isFinished()) {
+            engine.step(tickSeconds);
+            accumulator -= tickSeconds;
+            ticks++;
+            long now = System.nanoTime();
+            if (tickNanos != null) {
+                tickNanos.accept(now - start);
+                start = now;
+            }
+            if (now >= deadline) {
+                break;
+            }
+        }
+
+        float maxBacklog = MAX_BACKLOG_TICKS * tickSeconds;
+        if (accumulator > maxBacklog) {
+            accumulator = maxBacklog;
+        }
+        return ticks;
+    }
+
+    /**
+     * Acumula o tempo do frame e diz quantos ticks são devidos, sem executá-los (ex.: para
+     * avançar vários motores juntos no {@link EnsembleHost}). O tempo além de
+     * {@code maxTicks} ticks é descartado, como o atraso em {@link #advance}.
+     */
+    public int consumeTicks(float frameSeconds, float speed, int maxTicks) {
+        accumulator += Math.min(frameSeconds, MAX_FRAME_SECONDS) * speed;
+        int ticks = Math.min((int) (accumulator / tickSeconds), Math.max(0, maxTicks));
+        accumulator -= ticks * tickSeconds;
+        float maxBacklog = MAX_BACKLOG_TICKS * tickSeconds;
+        if (accumulator > maxBacklog) {
+            accumulator = maxBacklog;
+        }
+        return ticks;
+    }
+
+    /**
+     * Descarta o tempo acumulado (ex.: ao resetar ou retomar de uma pausa).
+     */
+    public void reset() {
+        accumulator = 0f;
+    }
+
+    public float getTickSeconds() { return tickSeconds; }
+}
@@ -0,0 +1,727 @@
+package netlogoparaguay.simulation;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import netlogoparaguay.agents.Controls.Agent.Agent;
+import netlogoparaguay.agents.Controls.Agent.AgentPool;
+import netlogoparaguay.agents.Controls.Agent.AgentStore;
+import netlogoparaguay.agents.Controls.Agent.Guarani;
+import netlogoparaguay.agents.Controls.Agent.Jesuit;
+import netlogoparaguay.agents.Controls.controller.AgentControl;
+import netlogoparaguay.agents.Controls.controller.ControlTuning;
+import netlogoparaguay.agents.Controls.controller.GuaraniControl;
+import netlogoparaguay.agents.Controls.controller.JesuitControl;
+import netlogoparaguay.resources.Resource;
+import netlogoparaguay.resources.ResourceManager;
+import netlogoparaguay.simulation.jfr.AgentMultiplicationEvent;
+import netlogoparaguay.simulation.jfr.AttackEvent;
+import netlogoparaguay.simulation.jfr.SimulationResetEvent;
+import netlogoparaguay.simulation.jfr.TickEvent;
+import netlogoparaguay.utils.DensityField;
+import netlogoparaguay.utils.SimulationRandom;
+import netlogoparaguay.utils.SnapshotBuffer;
+import netlogoparaguay.utils.SpatialGrid;
+
+/**
+ * Motor da simulação em Java puro: agentes, recursos e regras de combate.
+ * Não depende de janela, contexto gráfico nem da cena do jMonkeyEngine (usa apenas as
+ * classes de matemática do jme3-core), então pode rodar sem display, tão rápido quanto a
+ * CPU permitir. O {@link SimulationAppStates} apenas chama {@link #step(float)} e espelha o
+ * estado nos Spatials através de um {@link SimulationListener}.
+ */
+public class SimulationEngine {
+
+    // Tamanho padrão do mundo; cada motor pode ter o seu (ver construtor), centrado na origem
+    public static final float DEFAULT_AREA_WIDTH = 30f;
+    public static final float DEFAULT_AREA_HEIGHT = 30f;
+
+    private final float areaWidth;
+    private final float areaHeight;
+
+    // Cabeçalho dos checkpoints gravados por writeSnapshot ("NLCK").
+    // Versão 2: inclui o tamanho do mundo (a versão 1 implica o tamanho padrão).
+    private static final int SNAPSHOT_MAGIC = 0x4E4C434B;
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private final ResourceManager resourceManager;
+
+    // Estado de todos os agentes em arrays primitivos; o slot também define a ordem de atualização
+    private final AgentStore agentStore = new AgentStore();
+    // Agentes mortos/removidos ficam guardados aqui e são reaproveitados nos nascimentos
+    private final AgentPool agentPool;
+
+    // Limite padrão de agentes vivos por facção (nascimentos e adições manuais param nele)
+    public static final int DEFAULT_MAX_AGENTS_PER_FACTION = 50;
+    private int maxAgentsPerFaction = DEFAULT_MAX_AGENTS_PER_FACTION;
+
+    // A partir desta população total (no reset) a simulação entra no modo de grande população:
+    // células do índice espacial menores que o raio de visão e, na cena, uma representação barata
+    public static final int LARGE_POPULATION_THRESHOLD = 2000;
+    private boolean largePopulationMode = false;
+    // Agentes por facção esperados em cada célula do índice no modo de grande população
+    private static final float TARGET_AGENTS_PER_CELL = 4f;
+    private static final float MIN_INDEX_CELL_SIZE = 0.25f;
+    // Lado das células do campo de densidade: um quarto do raio de visão deixa o quadrado
+    // inscrito de uma consulta com vários blocos de células inteiras
+    private static final float DENSITY_CELL_SIZE = AgentControl.DEFAULT_VISION_RADIUS / 4f;
+
+    // Quantos agentes além da população inicial o pool cria antecipadamente no reset;
+    // acima disso ele cresce sob demanda
+    private static final int MAX_PREWARM_HEADROOM = 1024;
+
+    // Índices espaciais por facção, reconstruídos uma vez por tick em rebuildSpatialIndex().
+    // Os controles consultam apenas as células vizinhas em vez de varrer as listas inteiras.
+    // O tamanho das células é escolhido no reset conforme a população (ver indexCellSizeFor).
+    private SpatialGrid<Guarani> guaraniGrid;
+    private SpatialGrid<Jesuit> jesuitGrid;
+    // Densidade dos guaranis vivos, reconstruída junto com os índices: a checagem de aliados do
+    // GuaraniControl tira dela limites em O(1) e só recorre à grade quando eles não bastam
+    private DensityField guaraniDensity;
+
+    private final List<SimulationListener> listeners = new ArrayList<>();
+
+    // Repassa cada evento a todos os listeners registrados (inclusive os do ResourceManager)
+    private final SimulationListener dispatcher = new SimulationListener() {
+        @Override
+        public void onReset() {
+            for (SimulationListener l : listeners) l.onReset();
+        }
+
+        @Override
+        public void onAgentAdded(Agent agent) {
+            for (SimulationListener l : listeners) l.onAgentAdded(agent);
+        }
+
+        @Override
+        public void onAgentRemoved(Agent agent) {
+            for (SimulationListener l : listeners) l.onAgentRemoved(agent);
+        }
+
+        @Override
+        public void onResourceSpawned(Resource resource) {
+            for (SimulationListener l : listeners) l.onResourceSpawned(resource);
+        }
+
+        @Override
+        public void onResourceRemoved(Resource resource) {
+            for (SimulationListener l : listeners) l.onResourceRemoved(resource);
+        }
+
+        @Override
+        public void onAttack(Agent attacker, Agent target, float damage) {
+            for (SimulationListener l : listeners) l.onAttack(attacker, target, damage);
+        }
+
+        @Override
+        public void onResourceCollected(Agent collector, Resource resource) {
+            for (SimulationListener l : listeners) l.onResourceCollected(collector, resource);
+        }
+
+        @Override
+        public void onTickEnd(int loop) {
+            for (SimulationListener l : listeners) l.onTickEnd(loop);
+        }
+    };
+
+    private int initialGuaraniCount;
+    private int initialJesuitCount;
+    private int maxLoops;
+
+    private int currentLoop = 0;
+    private boolean finished = false;
+    private boolean deathsPending = false;
+
+    public static final int DEFAULT_RES_CAPACITY_PER_TYPE = 20;
+    public static final int DEFAULT_RES_MAX_ON_MAP_PER_TYPE = 8;
+    public static final float DEFAULT_RES_RESPAWN_INTERVAL = 10.0f;
+
+    private final int res_capacityPerType;
+    private final int res_maxOnMapPerType;
+    private final float res_respawnInterval;
+
+    // Parâmetros de comportamento por facção (indexados por AgentStore.GUARANI/JESUIT),
+    // aplicados a cada agente colocado no mundo
+    private final ControlTuning[] controlTuning = { GuaraniControl.DEFAULT_TUNING, JesuitControl.DEFAULT_TUNING };
+
+    // Abaixo deste número de agentes a fase de decisão roda em série: dividir o trabalho
+    // no ForkJoinPool custaria mais do que as consultas em si.
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+
+    private boolean parallelDecide = true;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private float currentDt;
+
+    // Fase 1 de um slot: só leitura do mundo, escreve apenas no controle do próprio agente
+    private final IntConsumer senseSlot = slot -> {
+        if (!agentStore.isDead(slot)) {
+            agentStore.getAgent(slot).getAgentControl().sense(currentDt);
+        }
+    };
+
+    // Semente mestra: a cada reset todos os fluxos aleatórios são derivados dela, na mesma
+    // ordem, então a mesma semente (e os mesmos parâmetros) reproduz a mesma execução,
+    // com a fase de decisão em série ou em paralelo (ela não usa números aleatórios).
+    private Long fixedSeed = null;
+    private long currentSeed;
+    // Posições de agentes novos e de filhos
+    private SimulationRandom spawnRandom = new SimulationRandom();
+    // Raiz dos fluxos por agente: cada agente colocado no mundo recebe um split() dela
+    private SimulationRandom agentRandomRoot = new SimulationRandom();
+    private final Vector3f spawnPosition = new Vector3f();
+
+    // Mede as fases do tick quando registrado (ver TickProfiler); null = sem medição
+    private TickProfiler profiler;
+
+    public SimulationEngine() {
+        this(DEFAULT_RES_CAPACITY_PER_TYPE, DEFAULT_RES_MAX_ON_MAP_PER_TYPE, DEFAULT_RES_RESPAWN_INTERVAL);
+    }
+
+    /**
+     * Motor com parâmetros de recursos próprios (usado nas varreduras de parâmetros).
+     * @param resCapacityPerType Máximo de recursos de cada tipo existentes ao mesmo tempo.
+     * @param resMaxOnMapPerType Máximo de recursos de cada tipo no mapa.
+     * @param resRespawnInterval Segundos entre as tentativas de repor recursos.
+     */
+    public SimulationEngine(int resCapacityPerType, int resMaxOnMapPerType, float resRespawnInterval) {
+        this(DEFAULT_AREA_WIDTH, DEFAULT_AREA_HEIGHT, resCapacityPerType, resMaxOnMapPerType, resRespawnInterval);
+    }
+
+    /**
+     * Motor com um mundo de tamanho próprio. Todo o estado do mundo pertence à instância, então
+     * vários motores podem rodar ao mesmo tempo na mesma JVM, cada um em uma thread
+     * (ver {@link EnsembleHost}).
+     * @param areaWidth Largura do mundo, centrado na origem.
+     * @param areaHeight Altura do mundo, centrado na origem.
+     */
+    public SimulationEngine(float areaWidth, float areaHeight,
+                            int resCapacityPerType, int resMaxOnMapPerType, float resRespawnInterval) {
+        if (!(areaWidth > 2f && areaHeight > 2f)) {
+            throw new IllegalArgumentException("Mundo pequeno demais: " + areaWidth + "x" + areaHeight);
+        }
+        this.areaWidth = areaWidth;
+        this.areaHeight = areaHeight;
+        this.guaraniGrid = new SpatialGrid<>(areaWidth, areaHeight, AgentControl.DEFAULT_VISION_RADIUS);
+        this.jesuitGrid = new SpatialGrid<>(areaWidth, areaHeight, AgentControl.DEFAULT_VISION_RADIUS);
+        this.guaraniDensity = new DensityField(areaWidth, areaHeight, DENSITY_CELL_SIZE);
+        this.res_capacityPerType = resCapacityPerType;
+        this.res_maxOnMapPerType = resMaxOnMapPerType;
+        this.res_respawnInterval = resRespawnInterval;
+        this.agentPool = new AgentPool(this);
+        this.resourceManager = new ResourceManager(
+                res_capacityPerType,
+                res_maxOnMapPerType,
+                res_respawnInterval,
+                areaWidth,
+                areaHeight,
+                AgentControl.DEFAULT_VISION_RADIUS
+        );
+        this.resourceManager.setListener(dispatcher);
+    }
+
+    public void addListener(SimulationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SimulationListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void reset(int initialGuaranis, int initialJesuits, int newMaxLoops) {
+        SimulationResetEvent event = new SimulationResetEvent();
+        event.begin();
+        seedRandomStreams();
+        this.currentLoop = 0;
+        this.finished = false;
+        this.initialGuaraniCount = initialGuaranis;
+        this.initialJesuitCount = initialJesuits;
+        this.maxLoops = newMaxLoops;
+
+        resourceManager.cleanupAllResources();
+        agentPool.releaseAll();
+        agentStore.resetIds();
+        deathsPending = false;
+        // Definido antes do onReset para que os listeners já escolham a representação certa
+        largePopulationMode = initialGuaranis + initialJesuits >= LARGE_POPULATION_THRESHOLD;
+        resizeSpatialIndex(indexCellSizeFor(initialGuaranis + initialJesuits));
+        dispatcher.onReset();
+
+        agentPool.prewarm(AgentStore.GUARANI, prewarmTarget(initialGuaranis));
+        agentPool.prewarm(AgentStore.JESUIT, prewarmTarget(initialJesuits));
+        createInitialAgents();
+        resourceManager.resetAndRepopulate();
+        rebuildSpatialIndex();
+        commitReset(event, false);
+    }
+
+    private void commitReset(SimulationResetEvent event, boolean fromCheckpoint) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.seed = currentSeed;
+            event.initialGuaranis = initialGuaraniCount;
+            event.initialJesuits = initialJesuitCount;
+            event.maxLoops = maxLoops;
+            event.fromCheckpoint = fromCheckpoint;
+            event.commit();
+        }
+    }
+
+    private void seedRandomStreams() {
+        currentSeed = fixedSeed != null ? fixedSeed : new SimulationRandom().nextLong();
+        SimulationRandom root = new SimulationRandom(currentSeed);
+        spawnRandom = root.split();
+        agentRandomRoot = root.split();
+        resourceManager.setRandom(root.split());
+    }
+
+    /**
+     * Novo fluxo aleatório independente para um agente. Deve ser chamado só na parte
+     * serial do tick, para que a ordem dos splits (e portanto a execução) seja determinística.
+     */
+    public SimulationRandom newAgentRandom() {
+        return agentRandomRoot.split();
+    }
+
+    /**
+     * Grava o estado completo da simulação (agentes com comportamento, recursos, fluxos
+     * aleatórios e o loop atual) para um checkpoint. Deve ser chamado entre ticks.
+     * Restaurar com {@link #restoreSnapshot} e continuar produz a mesma execução.
+     */
+    public void writeSnapshot(SnapshotBuffer out) {
+        out.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION);
+        out.putFloat(areaWidth).putFloat(areaHeight);
+        out.putInt(initialGuaraniCount).putInt(initialJesuitCount);
+        out.putInt(maxLoops).putInt(currentLoop).putBoolean(finished);
+        out.putInt(maxAgentsPerFaction);
+        out.putLong(currentSeed);
+        spawnRandom.writeState(out);
+        agentRandomRoot.writeState(out);
+
+        agentPool.writeState(out);
+        for (int slot = 0, n = agentStore.size(); slot < n; slot++) {
+            agentStore.getAgent(slot).getAgentControl().writeState(out);
+        }
+        resourceManager.writeState(out);
+    }
+
+    /**
+     * Substitui o estado atual pelo de um checkpoint gravado por {@link #writeSnapshot}.
+     * Para os listeners funciona como um reset: onReset seguido dos agentes e recursos restaurados.
+     * O checkpoint inteiro é conferido antes de qualquer mudança: se for inválido, o motor fica
+     * como estava.
+     * @throws IllegalArgumentException se os dados não forem um checkpoint válido desta versão,
+     *         estiverem truncados ou não forem compatíveis com este motor (área, capacidade de recursos).
+     */
+    public void restoreSnapshot(ByteBuffer in) {
+        try {
+            validateSnapshot(in.duplicate().order(in.order()));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Checkpoint truncado", e);
+        }
+        // Já conferidos acima: magia, versão e área
+        in.getInt();
+        int version = in.getInt();
+        if (version >= 2) {
+            in.getFloat();
+            in.getFloat();
+        }
+        SimulationResetEvent event = new SimulationResetEvent();
+        event.begin();
+        initialGuaraniCount = in.getInt();
+        initialJesuitCount = in.getInt();
+        maxLoops = in.getInt();
+        currentLoop = in.getInt();
+        finished = SnapshotBuffer.getBoolean(in);
+        maxAgentsPerFaction = in.getInt();
+        currentSeed = in.getLong();
+        spawnRandom = SimulationRandom.readState(in);
+        agentRandomRoot = SimulationRandom.readState(in);
+
+        resourceManager.cleanupAllResources();
+        agentPool.releaseAll();
+        deathsPending = false;
+        largePopulationMode = initialGuaraniCount + initialJesuitCount >= LARGE_POPULATION_THRESHOLD;
+        resizeSpatialIndex(indexCellSizeFor(initialGuaraniCount + initialJesuitCount));
+        dispatcher.onReset();
+
+        Agent[] agents = agentPool.readState(in);
+        int maxId = -1;
+        for (Agent agent : agents) {
+            maxId = Math.max(maxId, agent.getId());
+        }
+        Agent[] byId = new Agent[maxId + 1];
+        for (Agent agent : agents) {
+            byId[agent.getId()] = agent;
+        }
+        for (Agent agent : agents) {
+            agent.getAgentControl().applyTuning(controlTuning[agent.getFaction()]);
+            agent.getAgentControl().readState(in, id -> id < byId.length ? byId[id] : null);
+        }
+        resourceManager.readState(in);
+
+        for (Agent agent : agents) {
+            dispatcher.onAgentAdded(agent);
+        }
+        rebuildSpatialIndex();
+        commitReset(event, true);
+    }
+
+    /**
+     * Percorre um checkpoint inteiro sem alterar o motor, lançando IllegalArgumentException
+     * (ou BufferUnderflowException, se ele acabar antes) ao encontrar algo inválido.
+     */
+    private void validateSnapshot(ByteBuffer in) {
+        if (in.getInt() != SNAPSHOT_MAGIC) {
+            throw new IllegalArgumentException("Os dados não são um checkpoint da simulação.");
+        }
+        int version = in.getInt();
+        if (version != SNAPSHOT_VERSION && version != 1) {
+            throw new IllegalArgumentException("Versão de checkpoint não suportada: " + version);
+        }
+        float width = version >= 2 ? in.getFloat() : DEFAULT_AREA_WIDTH;
+        float height = version >= 2 ? in.getFloat() : DEFAULT_AREA_HEIGHT;
+        if (width != areaWidth || height != areaHeight) {
+            throw new IllegalArgumentException("O checkpoint é de um mundo " + width + "x" + height
+                    + ", mas este motor tem " + areaWidth + "x" + areaHeight);
+        }
+        int guaranis = in.getInt();
+        int jesuits = in.getInt();
+        in.getInt();
+        int loop = in.getInt();
+        SnapshotBuffer.getBoolean(in);
+        int maxPerFaction = in.getInt();
+        if (guaranis < 0 || jesuits < 0 || loop < 0 || maxPerFaction < 1) {
+            throw new IllegalArgumentException("Cabeçalho de checkpoint inválido: populações " + guaranis + "/" + jesuits
+                    + ", loop " + loop + ", teto por facção " + maxPerFaction);
+        }
+        in.getLong();
+        SimulationRandom.readState(in);
+        SimulationRandom.readState(in);
+
+        int agents = AgentPool.validateState(in);
+        for (int i = 0; i < agents; i++) {
+            AgentControl.validateState(in);
+        }
+        resourceManager.validateState(in);
+    }
+
+    private int prewarmTarget(int initialCount) {
+        return Math.max(initialCount, Math.min(maxAgentsPerFaction, initialCount + MAX_PREWARM_HEADROOM));
+    }
+
+    /**
+     * Tamanho das células dos índices espaciais dos agentes para uma população.
+     * Populações normais usam o raio de visão (no máximo 3x3 células por consulta); em grandes
+     * populações as células diminuem para manter poucos agentes por célula, e a busca em anéis
+     * do {@link SpatialGrid} encontra o vizinho mais próximo sem percorrer o raio inteiro.
+     */
+    private float indexCellSizeFor(int totalAgents) {
+        if (totalAgents < LARGE_POPULATION_THRESHOLD) {
+            return AgentControl.DEFAULT_VISION_RADIUS;
+        }
+        float area = areaWidth * areaHeight;
+        float cellSize = (float) Math.sqrt(area * TARGET_AGENTS_PER_CELL / totalAgents);
+        return FastMath.clamp(cellSize, MIN_INDEX_CELL_SIZE, AgentControl.DEFAULT_VISION_RADIUS);
+    }
+
+    private void resizeSpatialIndex(float cellSize) {
+        if (guaraniGrid.getCellSize() != cellSize) {
+            guaraniGrid = new SpatialGrid<>(areaWidth, areaHeight, cellSize);
+            jesuitGrid = new SpatialGrid<>(areaWidth, areaHeight, cellSize);
+        }
+    }
+
+    private void createInitialAgents() {
+        for (int i = 0; i < initialGuaraniCount; i++) {
+            placeNewAgent(AgentStore.GUARANI, "Guarani_" + (i + 1));
+        }
+        for (int i = 0; i < initialJesuitCount; i++) {
+            placeNewAgent(AgentStore.JESUIT, "Jesuit_" + (i + 1));
+        }
+    }
+
+    /**
+     * Coloca um agente (reaproveitado do pool quando possível) em uma posição aleatória.
+     */
+    private Agent placeNewAgent(int factionId, String name) {
+        float x = (spawnRandom.nextFloat() - 0.5f) * (areaWidth - 2f);
+        float y = (spawnRandom.nextFloat() - 0.5f) * (areaHeight - 2f);
+        Agent agent = agentPool.acquire(factionId, name, spawnPosition.set(x, y, 0));
+        agent.getAgentControl().applyTuning(controlTuning[factionId]);
+        agent.getAgentControl().setRandom(newAgentRandom());
+        dispatcher.onAgentAdded(agent);
+        return agent;
+    }
+
+    public Agent dynamicallyAddAgent(String type) {
+        Agent newAgent = null;
+        int guaraniCount = getActiveGuaraniCount();
+        int jesuitCount = getActiveJesuitCount();
+        if ("Guarani".equalsIgnoreCase(type) && guaraniCount < maxAgentsPerFaction) {
+            newAgent = placeNewAgent(AgentStore.GUARANI, "Guarani_d" + (guaraniCount + 1));
+        } else if ("Jesuit".equalsIgnoreCase(type) && jesuitCount < maxAgentsPerFaction) {
+            newAgent = placeNewAgent(AgentStore.JESUIT, "Jesuit_d" + (jesuitCount + 1));
+        }
+        return newAgent;
+    }
+
+    public void dynamicallyRemoveAgent(String type) {
+        int slot = -1;
+        if ("Guarani".equalsIgnoreCase(type)) {
+            slot = agentStore.findLast(AgentStore.GUARANI);
+        } else if ("Jesuit".equalsIgnoreCase(type)) {
+            slot = agentStore.findLast(AgentStore.JESUIT);
+        }
+        if (slot >= 0) {
+            Agent agentToRemove = agentStore.getAgent(slot);
+            agentPool.release(slot);
+            dispatcher.onAgentRemoved(agentToRemove);
+        }
+    }
+
+    /**
+     * Avança a simulação em um tick. Para resultados reprodutíveis use sempre o mesmo dt
+     * (ver {@link SimulationClock}); cada chamada conta como um loop para o maxLoops.
+     * <p>
+     * O tick tem duas fases: primeiro todos os agentes decidem o que fazer olhando o estado
+     * do início do tick (em paralelo no ForkJoinPool comum quando há agentes suficientes);
+     * depois as decisões são aplicadas em série, na ordem dos slots (movimento, dano,
+     * coleta e nascimentos), o que mantém o resultado independente do número de threads.
+     * @param dt O passo de tempo da simulação, em segundos.
+     */
+    public void step(float dt) {
+        if (finished) {
+            return;
+        }
+
+        TickEvent tickEvent = new TickEvent();
+        tickEvent.begin();
+
+        currentLoop++;
+        if (maxLoops > 0 && currentLoop >= maxLoops) {
+            finished = true;
+        }
+
+        TickProfiler prof = profiler;
+        long phaseStart = prof != null ? prof.begin() : 0L;
+
+        rebuildSpatialIndex();
+        if (prof != null) phaseStart = prof.lap(TickProfiler.Phase.SPATIAL_INDEX, phaseStart);
+        resourceManager.update(dt);
+
+        if (currentLoop > 0 && currentLoop % 50 == 0) {
+            resetMultiplicationFlags();
+        }
+        if (prof != null) phaseStart = prof.lap(TickProfiler.Phase.RESOURCES, phaseStart);
+
+        // Agentes nascidos durante o tick só agem a partir do próximo; os slots dos mortos
+        // só são liberados ao final, para não reordenar o store no meio da iteração.
+        int count = agentStore.size();
+
+        // Fase 1: decisão (somente leitura)
+        currentDt = dt;
+        if (parallelDecide && count >= parallelThreshold) {
+            IntStream.range(0, count).parallel().forEach(senseSlot);
+        } else {
+            for (int slot = 0; slot < count; slot++) {
+                senseSlot.accept(slot);
+            }
+        }
+        if (prof != null) phaseStart = prof.lap(TickProfiler.Phase.DECIDE, phaseStart);
+
+        // Fase 2: aplicação (série)
+        for (int slot = 0; slot < count && !finished; slot++) {
+            if (!agentStore.isDead(slot)) {
+                agentStore.getAgent(slot).getAgentControl().act(dt);
+            }
+        }
+        if (prof != null) phaseStart = prof.lap(TickProfiler.Phase.ACT, phaseStart);
+
+        if (deathsPending) {
+            agentPool.releaseDead();
+            deathsPending = false;
+        }
+        if (prof != null) phaseStart = prof.lap(TickProfiler.Phase.DEATHS, phaseStart);
+        dispatcher.onTickEnd(currentLoop);
+        if (prof != null) prof.lap(TickProfiler.Phase.LISTENERS, phaseStart);
+
+        tickEvent.end();
+        if (tickEvent.shouldCommit()) {
+            tickEvent.loop = currentLoop;
+            tickEvent.guaranis = agentStore.getAliveCount(AgentStore.GUARANI);
+            tickEvent.jesuits = agentStore.getAliveCount(AgentStore.JESUIT);
+            tickEvent.agents = tickEvent.guaranis + tickEvent.jesuits;
+            tickEvent.commit();
+        }
+    }
+
+    private void rebuildSpatialIndex() {
+        guaraniGrid.clear();
+        jesuitGrid.clear();
+        guaraniDensity.clear();
+        for (int slot = 0, n = agentStore.size(); slot < n; slot++) {
+            if (agentStore.isDead(slot)) continue;
+            Agent agent = agentStore.getAgent(slot);
+            float x = agentStore.getX(slot), y = agentStore.getY(slot);
+            if (agentStore.getFaction(slot) == AgentStore.GUARANI) {
+                guaraniGrid.insert((Guarani) agent, x, y);
+                guaraniDensity.add(x, y);
+            } else {
+                jesuitGrid.insert((Jesuit) agent, x, y);
+            }
+        }
+        guaraniDensity.build();
+        if (largePopulationMode) {
+            // Com muitos agentes, deixar cada célula contígua na memória compensa o custo O(n)
+            guaraniGrid.compact();
+            jesuitGrid.compact();
+        }
+    }
+
+    public void notifyAgentDeath(Agent deadAgent) {
+        if (deadAgent == null) return;
+
+        deathsPending = true;
+        dispatcher.onAgentRemoved(deadAgent);
+
+        boolean guaranisRemaining = getActiveGuaraniCount() > 0;
+        boolean jesuitsRemaining = getActiveJesuitCount() > 0;
+
+        if (currentLoop > 0 && (!guaranisRemaining || !jesuitsRemaining)) {
+            finished = true;
+        }
+    }
+
+    /**
+     * Avisa os listeners de um ataque, antes de o dano ser aplicado ao alvo.
+     */
+    public void notifyAttack(Agent attacker, Agent target, float damage) {
+        AttackEvent event = new AttackEvent();
+        if (event.shouldCommit()) {
+            event.attackerId = attacker.getId();
+            event.targetId = target.getId();
+            event.damage = damage;
+            event.commit();
+        }
+        dispatcher.onAttack(attacker, target, damage);
+    }
+
+    /**
+     * Avisa os listeners de que um agente coletou um recurso.
+     */
+    public void notifyResourceCollected(Agent collector, Resource resource) {
+        dispatcher.onResourceCollected(collector, resource);
+    }
+
+    private void resetMultiplicationFlags() {
+        agentStore.clearMultiplied();
+    }
+
+    public boolean requestAgentMultiplication(Agent parent) {
+        Agent newAgent = null;
+        float offsetX = (spawnRandom.nextFloat() - 0.5f) * 2f;
+        float offsetY = (spawnRandom.nextFloat() - 0.5f) * 2f;
+        Vector3f childPosition = parent.getPosition().add(offsetX, offsetY, 0);
+
+        childPosition.x = FastMath.clamp(childPosition.x, -areaWidth / 2f + 0.5f, areaWidth / 2f - 0.5f);
+        childPosition.y = FastMath.clamp(childPosition.y, -areaHeight / 2f + 0.5f, areaHeight / 2f - 0.5f);
+
+        int guaraniCount = getActiveGuaraniCount();
+        int jesuitCount = getActiveJesuitCount();
+        if (parent instanceof Guarani && guaraniCount < maxAgentsPerFaction) {
+            newAgent = placeNewAgent(AgentStore.GUARANI, "Guarani_c" + (guaraniCount + 1));
+        } else if (parent instanceof Jesuit && jesuitCount < maxAgentsPerFaction) {
+            newAgent = placeNewAgent(AgentStore.JESUIT, "Jesuit_c" + (jesuitCount + 1));
+        }
+
+        AgentMultiplicationEvent event = new AgentMultiplicationEvent();
+        if (event.shouldCommit()) {
+            event.parentId = parent.getId();
+            event.childId = newAgent != null ? newAgent.getId() : -1;
+            event.faction = parent instanceof Guarani ? "Guarani" : "Jesuit";
+            event.loop = currentLoop;
+            event.commit();
+        }
+
+        return newAgent != null;
+    }
+
+    public String determineWinner() {
+        int guaraniCount = getActiveGuaraniCount();
+        int jesuitCount = getActiveJesuitCount();
+        boolean guaranisExist = guaraniCount > 0;
+        boolean jesuitsExist = jesuitCount > 0;
+
+        if (maxLoops > 0 && currentLoop >= maxLoops && finished) {
+            if (guaraniCount > jesuitCount) return "Guarani (Tempo)";
+            if (jesuitCount > guaraniCount) return "Jesuita (Tempo)";
+            return "Empate (Tempo)";
+        }
+
+        if (finished) {
+            if (guaranisExist && !jesuitsExist) return "Guarani";
+            if (!guaranisExist && jesuitsExist) return "Jesuita";
+            if (!guaranisExist && !jesuitsExist && currentLoop > 0) return "Empate (Extermínio)";
+        }
+        return "-";
+    }
+
+    // --- Getters e Setters ---
+
+    public AgentStore getAgentStore() { return agentStore; }
+    public AgentPool getAgentPool() { return agentPool; }
+    public SpatialGrid<Guarani> getGuaraniGrid() { return guaraniGrid; }
+    public SpatialGrid<Jesuit> getJesuitGrid() { return jesuitGrid; }
+    public DensityField getGuaraniDensity() { return guaraniDensity; }
+    public ResourceManager getResourceManager() { return resourceManager; }
+    public int getActiveGuaraniCount() { return agentStore.getAliveCount(AgentStore.GUARANI); }
+    public int getActiveJesuitCount() { return agentStore.getAliveCount(AgentStore.JESUIT); }
+    public int getCurrentLoop() { return currentLoop; }
+    public int getMaxLoops() { return maxLoops; }
+    public int getInitialGuaraniCount() { return initialGuaraniCount; }
+    public int getInitialJesuitCount() { return initialJesuitCount; }
+    public boolean isFinished() { return finished; }
+    public float getAreaWidth() { return areaWidth; }
+    public float getAreaHeight() { return areaHeight; }
+    public int getMaxAgentsPerFaction() { return maxAgentsPerFaction; }
+    public boolean isLargePopulationMode() { return largePopulationMode; }
+    public long getCurrentSeed() { return currentSeed; }
+    public boolean isParallelDecide() { return parallelDecide; }
+    public int getParallelThreshold() { return parallelThreshold; }
+
+    public TickProfiler getProfiler() { return profiler; }
+
+    public void setMaxLoops(int newMaxLoops) { this.maxLoops = newMaxLoops; }
+
+    /** Registra (ou remove, com null) o profiler das fases do tick. */
+    public void setProfiler(TickProfiler profiler) { this.profiler = profiler; }
+
+    /**
+     * Fixa a semente mestra usada a partir do próximo {@link #reset}. Com null, cada reset
+     * sorteia uma semente nova (consulte {@link #getCurrentSeed()} para reproduzir a execução).
+     */
+    public void setSeed(Long seed) {
+        this.fixedSeed = seed;
+    }
+    public void setMaxAgentsPerFaction(int maxAgentsPerFaction) { this.maxAgentsPerFaction = Math.max(1, maxAgentsPerFaction); }
+    /**
+     * Define os parâmetros de comportamento de uma facção (null volta ao padrão dela).
+     * Valem para os agentes colocados no mundo a partir de agora, normalmente no próximo reset.
+     */
+    public void setControlTuning(int factionId, ControlTuning tuning) {
+        if (tuning == null) {
+            tuning = factionId == AgentStore.GUARANI ? GuaraniControl.DEFAULT_TUNING : JesuitControl.DEFAULT_TUNING;
+        }
+        controlTuning[factionId] = tuning;
+    }
+
+    public ControlTuning getControlTuning(int factionId) { return controlTuning[factionId]; }
+
+    public void setParallelDecide(boolean parallelDecide) { this.parallelDecide = parallelDecide; }
+    public void setParallelThreshold(int parallelThreshold) { this.parallelThreshold = Math.max(1, parallelThreshold); }
+}
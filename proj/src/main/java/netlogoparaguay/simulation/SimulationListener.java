@@ -0,0 +1,36 @@
+package netlogoparaguay.simulation;
+
+import netlogoparaguay.agents.Controls.Agent.Agent;
+import netlogoparaguay.resources.Resource;
+
+/**
+ * Recebe notificações do {@link SimulationEngine} sobre mudanças no mundo.
+ * É por aqui que a camada visual (SimulationAppStates) espelha o estado do motor
+ * sem que o motor conheça o jMonkeyEngine. Todos os métodos têm implementação vazia.
+ */
+public interface SimulationListener {
+
+    /** O mundo foi esvaziado por um reset; os novos agentes e recursos serão notificados em seguida. */
+    default void onReset() { }
+
+    /** Um agente entrou no mundo (inicial, adicionado pela UI ou nascido por multiplicação). */
+    default void onAgentAdded(Agent agent) { }
+
+    /** Um agente saiu do mundo (morte ou remoção pela UI). */
+    default void onAgentRemoved(Agent agent) { }
+
+    /** Um recurso apareceu no mapa. */
+    default void onResourceSpawned(Resource resource) { }
+
+    /** Um recurso saiu do mapa (coletado ou limpo no reset). */
+    default void onResourceRemoved(Resource resource) { }
+
+    /** Um agente atacou outro; chamado antes de o dano ser aplicado. */
+    default void onAttack(Agent attacker, Agent target, float damage) { }
+
+    /** Um agente coletou um recurso; chamado antes do {@link #onResourceRemoved}. */
+    default void onResourceCollected(Agent collector, Resource resource) { }
+
+    /** Fim de um tick do motor, depois de todos os agentes agirem e os mortos serem liberados. */
+    default void onTickEnd(int loop) { }
+}
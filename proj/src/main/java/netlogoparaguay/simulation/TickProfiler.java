@@ -0,0 +1,112 @@
+package netlogoparaguay.simulation;
+
+import java.lang.management.ManagementFactory;
+import netlogoparaguay.utils.LatencyHistogram;
+
+/**
+ * Mede quanto tempo (e quanta memória alocada) cada fase do tick e do frame consome.
+ * O motor e o {@link SimulationAppStates} marcam as fases com {@link #begin()}/{@link #lap};
+ * cada duração vai para o {@link LatencyHistogram} da fase. Sem profiler registrado, o
+ * custo no motor é um teste de null por fase.
+ *
+ * A memória alocada vem do ThreadMXBean da JVM e conta apenas a thread que marcou a
+ * fase: na decisão em paralelo, o que as threads do ForkJoinPool alocam não aparece.
+ * Não é thread-safe; deve ser usado só pela thread da simulação/renderização.
+ */
+public class TickProfiler {
+
+    public enum Phase {
+        SPATIAL_INDEX("Índice espacial"),
+        RESOURCES("Recursos"),
+        DECIDE("Decisão (sense)"),
+        ACT("Ação (movimento/combate)"),
+        DEATHS("Mortes"),
+        LISTENERS("Listeners"),
+        RENDER_SYNC("Sincronização da cena"),
+        SCENE_GRAPH("Atualização do grafo"),
+        RENDER("Renderização");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final long[] allocatedBytes = new long[PHASES.length];
+
+    // Null se a JVM não mede alocação por thread
+    private final com.sun.management.ThreadMXBean threadBean;
+    private long allocationMark;
+
+    public TickProfiler() {
+        for (int i = 0; i < PHASES.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        com.sun.management.ThreadMXBean bean = null;
+        java.lang.management.ThreadMXBean platformBean = ManagementFactory.getThreadMXBean();
+        if (platformBean instanceof com.sun.management.ThreadMXBean) {
+            bean = (com.sun.management.ThreadMXBean) platformBean;
+            if (bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                bean = null;
+            }
+        }
+        this.threadBean = bean;
+    }
+
+    /**
+     * Marca o início da primeira fase.
+     * @return O instante atual, a passar para {@link #lap}.
+     */
+    public long begin() {
+        allocationMark = allocatedNow();
+        return System.nanoTime();
+    }
+
+    /**
+     * Encerra uma fase iniciada em {@code start} e já começa a próxima.
+     * @return O instante atual, início da próxima fase.
+     */
+    public long lap(Phase phase, long start) {
+        long now = System.nanoTime();
+        histograms[phase.ordinal()].record(now - start);
+        long allocated = allocatedNow();
+        allocatedBytes[phase.ordinal()] += allocated - allocationMark;
+        allocationMark = allocated;
+        return now;
+    }
+
+    /** Registra uma duração medida por fora (sem contabilizar memória). */
+    public void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    private long allocatedNow() {
+        return threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : 0L;
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) { return histograms[phase.ordinal()]; }
+
+    /** Bytes alocados em média por ocorrência da fase desde o último reset. */
+    public double getMeanAllocatedBytes(Phase phase) {
+        long count = histograms[phase.ordinal()].getCount();
+        return count == 0 ? 0 : (double) allocatedBytes[phase.ordinal()] / count;
+    }
+
+    public boolean isMeasuringAllocation() { return threadBean != null; }
+
+    /** Começa uma nova janela de medição. */
+    public void reset() {
+        for (int i = 0; i < PHASES.length; i++) {
+            histograms[i].reset();
+            allocatedBytes[i] = 0;
+        }
+    }
+}
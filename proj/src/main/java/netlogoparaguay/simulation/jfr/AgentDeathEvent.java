@@ -0,0 +1,34 @@
+package netlogoparaguay.simulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Um agente morreu em combate ({@code Agent.takeDamage}).
+ */
+@Name("netlogoparaguay.AgentDeath")
+@Label("Morte de agente")
+@Category({"NetLogo Paraguay", "Agentes"})
+@StackTrace(false)
+public final class AgentDeathEvent extends jdk.jfr.Event {
+
+    @Label("Id do agente")
+    public int agentId;
+
+    @Label("Facção")
+    public String faction;
+
+    @Label("Dano recebido")
+    public float damage;
+
+    @Label("X")
+    public float x;
+
+    @Label("Y")
+    public float y;
+
+    @Label("Loop")
+    public int loop;
+}
@@ -0,0 +1,30 @@
+package netlogoparaguay.simulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Um agente pediu para se multiplicar ({@code SimulationEngine.requestAgentMultiplication}).
+ */
+@Name("netlogoparaguay.AgentMultiplication")
+@Label("Multiplicação de agente")
+@Category({"NetLogo Paraguay", "Agentes"})
+@StackTrace(false)
+public final class AgentMultiplicationEvent extends jdk.jfr.Event {
+
+    @Label("Id do pai")
+    public int parentId;
+
+    @Label("Id do filho")
+    @Description("-1 quando a facção já estava no teto de agentes")
+    public int childId;
+
+    @Label("Facção")
+    public String faction;
+
+    @Label("Loop")
+    public int loop;
+}
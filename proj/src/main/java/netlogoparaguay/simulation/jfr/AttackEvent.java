@@ -0,0 +1,28 @@
+package netlogoparaguay.simulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Um ataque entre agentes. Desligado por padrão, porque em populações grandes são milhares
+ * por tick; ative com {@code netlogoparaguay.Attack#enabled=true} nas configurações do JFR.
+ */
+@Name("netlogoparaguay.Attack")
+@Label("Ataque")
+@Category({"NetLogo Paraguay", "Agentes"})
+@Enabled(false)
+@StackTrace(false)
+public final class AttackEvent extends jdk.jfr.Event {
+
+    @Label("Id do atacante")
+    public int attackerId;
+
+    @Label("Id do alvo")
+    public int targetId;
+
+    @Label("Dano")
+    public float damage;
+}
@@ -0,0 +1,28 @@
+package netlogoparaguay.simulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Um recurso foi coletado e saiu do mapa ({@code ResourceManager.notifyResourceCollected}).
+ */
+@Name("netlogoparaguay.ResourceCollected")
+@Label("Coleta de recurso")
+@Category({"NetLogo Paraguay", "Recursos"})
+@StackTrace(false)
+public final class ResourceCollectedEvent extends jdk.jfr.Event {
+
+    @Label("Id do recurso")
+    public int resourceId;
+
+    @Label("Tipo")
+    public String type;
+
+    @Label("X")
+    public float x;
+
+    @Label("Y")
+    public float y;
+}
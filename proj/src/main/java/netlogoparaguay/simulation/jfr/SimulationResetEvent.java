@@ -0,0 +1,33 @@
+package netlogoparaguay.simulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Um reset do motor, ou a restauração de um checkpoint, com a duração da reconstrução do mundo.
+ */
+@Name("netlogoparaguay.Reset")
+@Label("Reset da simulação")
+@Category({"NetLogo Paraguay", "Simulação"})
+@StackTrace(false)
+public final class SimulationResetEvent extends jdk.jfr.Event {
+
+    @Label("Semente")
+    public long seed;
+
+    @Label("Guaranis iniciais")
+    public int initialGuaranis;
+
+    @Label("Jesuítas iniciais")
+    public int initialJesuits;
+
+    @Label("Máximo de loops")
+    public int maxLoops;
+
+    @Label("De checkpoint")
+    @Description("Verdadeiro quando o estado veio de um checkpoint em vez de um reset")
+    public boolean fromCheckpoint;
+}
@@ -0,0 +1,30 @@
+package netlogoparaguay.simulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Um tick completo do {@code SimulationEngine.step}, com a duração medida pelo JFR.
+ */
+@Name("netlogoparaguay.Tick")
+@Label("Tick da simulação")
+@Category({"NetLogo Paraguay", "Simulação"})
+@StackTrace(false)
+public final class TickEvent extends jdk.jfr.Event {
+
+    @Label("Loop")
+    public int loop;
+
+    @Label("Agentes")
+    @Description("Agentes vivos ao fim do tick")
+    public int agents;
+
+    @Label("Guaranis")
+    public int guaranis;
+
+    @Label("Jesuítas")
+    public int jesuits;
+}
@@ -0,0 +1,9 @@
+/**
+ * Eventos do JDK Flight Recorder emitidos pela simulação (ticks, mortes, multiplicações,
+ * coletas, ataques e resets), para alinhar numa gravação do JFR as pausas de GC e as amostras
+ * de CPU com o que a simulação estava fazendo. Com o JFR desligado, cada ponto de emissão custa
+ * só um teste: o JIT elimina a alocação do evento que não escapa.
+ *
+ * Exemplo: {@code java -XX:StartFlightRecording=filename=run.jfr ... HeadlessSimulation ...}
+ */
+package netlogoparaguay.simulation.jfr;
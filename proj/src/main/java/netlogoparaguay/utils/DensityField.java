@@ -0,0 +1,144 @@
+package netlogoparaguay.utils;
+
+import java.util.Arrays;
+
+/**
+ * Campo de densidade de uma população no plano XY: conta quantos pontos caem em cada célula
+ * de uma grade uniforme e, depois de {@link #build()}, guarda a tabela de somas acumuladas
+ * (summed-area table) dessas contagens. Com ela, o total de pontos em qualquer retângulo de
+ * células sai de quatro leituras, em O(1), independente do raio e da população.
+ *
+ * Como o campo só sabe em que célula cada ponto está, as consultas por raio devolvem limites:
+ * {@link #upperBound} conta todas as células que tocam o quadrado circunscrito ao círculo
+ * (nunca menos que o número real de pontos a menos de {@code r}) e {@link #lowerBound} conta
+ * só as células inteiramente dentro do quadrado inscrito (nunca mais). Quando os dois limites
+ * já decidem a pergunta, a busca exata no {@link SpatialGrid} pode ser dispensada.
+ *
+ * Uso por tick: {@link #clear()}, {@link #add} para cada ponto, {@link #build()}. As consultas
+ * só leem o campo e podem rodar em paralelo depois do build.
+ */
+public class DensityField {
+
+    // Um pouco menor que 1/sqrt(2), para que erros de arredondamento na célula de um ponto
+    // não o coloquem fora do círculo quando ele foi contado no quadrado inscrito
+    private static final float INSCRIBED_HALF_SIDE = 0.707f;
+
+    private final float minX;
+    private final float minY;
+    private final float maxX;
+    private final float maxY;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+
+    private final int[] counts;
+    // sums[(r + 1) * (columns + 1) + (c + 1)] = pontos nas células [0..r] x [0..c]
+    private final int[] sums;
+
+    // Pontos fora da área: entram em todo limite superior e em nenhum inferior
+    private int outside = 0;
+    private int size = 0;
+
+    /**
+     * Cria um campo cobrindo a área [-width/2, width/2] x [-height/2, height/2].
+     * @param width Largura do mundo.
+     * @param height Altura do mundo.
+     * @param cellSize Lado de cada célula; células menores dão limites mais justos.
+     */
+    public DensityField(float width, float height, float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize deve ser positivo: " + cellSize);
+        }
+        this.minX = -width / 2f;
+        this.minY = -height / 2f;
+        this.maxX = width / 2f;
+        this.maxY = height / 2f;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.counts = new int[columns * rows];
+        this.sums = new int[(columns + 1) * (rows + 1)];
+    }
+
+    /**
+     * Zera as contagens. As consultas só voltam a valer depois do próximo {@link #build()}.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        outside = 0;
+        size = 0;
+    }
+
+    /**
+     * Conta um ponto na célula que contém (x, y).
+     */
+    public void add(float x, float y) {
+        size++;
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            outside++;
+            return;
+        }
+        counts[row(y) * columns + column(x)]++;
+    }
+
+    /**
+     * Recalcula a tabela de somas acumuladas a partir das contagens. O(células).
+     */
+    public void build() {
+        int stride = columns + 1;
+        for (int r = 0; r < rows; r++) {
+            int rowSum = 0;
+            int base = r * columns;
+            int above = r * stride;
+            int here = above + stride;
+            for (int c = 0; c < columns; c++) {
+                rowSum += counts[base + c];
+                sums[here + c + 1] = sums[above + c + 1] + rowSum;
+            }
+        }
+    }
+
+    /**
+     * Limite superior do número de pontos a menos de {@code radius} de (x, y).
+     */
+    public int upperBound(float x, float y, float radius) {
+        return sumCells(column(x - radius), row(y - radius), column(x + radius), row(y + radius)) + outside;
+    }
+
+    /**
+     * Limite inferior do número de pontos a menos de {@code radius} de (x, y).
+     */
+    public int lowerBound(float x, float y, float radius) {
+        float half = radius * INSCRIBED_HALF_SIDE;
+        int c0 = (int) Math.ceil((x - half - minX) / cellSize);
+        int c1 = (int) Math.floor((x + half - minX) / cellSize) - 1;
+        int r0 = (int) Math.ceil((y - half - minY) / cellSize);
+        int r1 = (int) Math.floor((y + half - minY) / cellSize) - 1;
+        return sumCells(Math.max(c0, 0), Math.max(r0, 0), Math.min(c1, columns - 1), Math.min(r1, rows - 1));
+    }
+
+    /**
+     * Pontos nas células [c0..c1] x [r0..r1] (índices já dentro da grade); 0 se o intervalo for vazio.
+     */
+    private int sumCells(int c0, int r0, int c1, int r1) {
+        if (c0 > c1 || r0 > r1) {
+            return 0;
+        }
+        int stride = columns + 1;
+        return sums[(r1 + 1) * stride + c1 + 1] - sums[r0 * stride + c1 + 1]
+                - sums[(r1 + 1) * stride + c0] + sums[r0 * stride + c0];
+    }
+
+    public int size() { return size; }
+    public float getCellSize() { return cellSize; }
+
+    private int column(float x) {
+        int c = (int) Math.floor((x - minX) / cellSize);
+        return c < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+
+    private int row(float y) {
+        int r = (int) Math.floor((y - minY) / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
@@ -0,0 +1,71 @@
+package netlogoparaguay.utils;
+
+import java.util.Arrays;
+
+/**
+ * Histograma de durações com baldes fixos em escala logarítmica (4 baldes por potência de 2,
+ * erro relativo de no máximo 25%), de 256 ns até dezenas de minutos. Registrar é O(1) e não
+ * aloca; os percentis são calculados percorrendo os baldes.
+ */
+public final class LatencyHistogram {
+
+    private static final int SHIFT = 8; // unidade mínima: 256 ns
+    private static final int BUCKETS = 128;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total = 0;
+    private long sumNanos = 0;
+    private long maxNanos = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucketFor(nanos)]++;
+        total++;
+        sumNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    static int bucketFor(long nanos) {
+        long v = nanos >>> SHIFT;
+        if (v < 4) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) ((v >>> (exp - 2)) & 3);
+        return Math.min(4 + (exp - 2) * 4 + sub, BUCKETS - 1);
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < 4) return (long) bucket << SHIFT;
+        int exp = (bucket - 4) / 4 + 2;
+        int sub = (bucket - 4) % 4;
+        return ((4L + sub) << (exp - 2)) << SHIFT;
+    }
+
+    /**
+     * Percentil aproximado (ponto médio do balde), em nanossegundos.
+     * @param p Entre 0 e 1 (ex.: 0.99).
+     */
+    public long percentile(double p) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                long mid = (lowerBound(b) + lowerBound(b + 1)) / 2;
+                return Math.min(mid, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public long getCount() { return total; }
+    public long getMaxNanos() { return maxNanos; }
+    public double getMeanNanos() { return total == 0 ? 0 : (double) sumNanos / total; }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sumNanos = 0;
+        maxNanos = 0;
+    }
+}
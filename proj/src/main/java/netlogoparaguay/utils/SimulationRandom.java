@@ -0,0 +1,87 @@
+package netlogoparaguay.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Gerador pseudoaleatório da simulação: o mesmo algoritmo (SplitMix64) e a mesma sequência
+ * do {@link java.util.SplittableRandom}, com a mesma semente, mas com o estado acessível,
+ * para que possa ser salvo em um checkpoint e restaurado exatamente.
+ * Assim como o SplittableRandom, não é thread-safe: cada fluxo pertence a um só usuário.
+ */
+public final class SimulationRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+    private long seed;
+    private long gamma;
+
+    public SimulationRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /** Gerador com semente imprevisível (ex.: antes do primeiro reset). */
+    public SimulationRandom() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    private SimulationRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Novo gerador independente, derivado deste (avança este fluxo).
+     */
+    public SimulationRandom split() {
+        return new SimulationRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    /** Valor uniforme em [0, 1). */
+    public float nextFloat() {
+        return (nextInt() >>> 8) * FLOAT_UNIT;
+    }
+
+    public void writeState(SnapshotBuffer out) {
+        out.putLong(seed);
+        out.putLong(gamma);
+    }
+
+    public static SimulationRandom readState(ByteBuffer in) {
+        long seed = in.getLong();
+        long gamma = in.getLong();
+        return new SimulationRandom(seed, gamma);
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,72 @@
+package netlogoparaguay.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffer de escrita que cresce sob demanda, usado para serializar o estado da simulação
+ * (checkpoints). A leitura é feita direto no {@link ByteBuffer}, com {@link #getString}
+ * para as strings gravadas por {@link #putString}. Pode ser reaproveitado com {@link #clear()}.
+ */
+public final class SnapshotBuffer {
+
+    private ByteBuffer buffer;
+
+    public SnapshotBuffer(int initialCapacity) {
+        buffer = ByteBuffer.allocate(Math.max(64, initialCapacity)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int needed = buffer.position() + bytes;
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(needed, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+
+    public SnapshotBuffer putByte(int value) { ensure(1); buffer.put((byte) value); return this; }
+    public SnapshotBuffer putBoolean(boolean value) { return putByte(value ? 1 : 0); }
+    public SnapshotBuffer putInt(int value) { ensure(4); buffer.putInt(value); return this; }
+    public SnapshotBuffer putLong(long value) { ensure(8); buffer.putLong(value); return this; }
+    public SnapshotBuffer putFloat(float value) { ensure(4); buffer.putFloat(value); return this; }
+
+    public SnapshotBuffer putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    public static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static boolean getBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+
+    /** Descarta o conteúdo, mantendo a capacidade. */
+    public void clear() {
+        buffer.clear();
+    }
+
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Vista somente leitura do conteúdo escrito até agora (posição 0, limite no fim dos dados).
+     * Fica válida até a próxima escrita.
+     */
+    public ByteBuffer contents() {
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        view.flip();
+        return view.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,301 @@
+package netlogoparaguay.utils;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Índice espacial de grade uniforme (spatial hash) para consultas de vizinhança no plano XY.
+ * O mundo, centrado na origem, é dividido em células quadradas de lado {@code cellSize};
+ * cada célula guarda uma lista encadeada (em arrays primitivos) dos itens que caem nela.
+ * Uma consulta visita apenas as células que intersectam o raio pedido, em vez de
+ * percorrer todos os itens, e não aloca memória. As consultas só leem a grade, então
+ * podem rodar em paralelo desde que ninguém a modifique ao mesmo tempo.
+ *
+ * Pode ser usada de duas formas: reconstruída a cada tick ({@link #clear()} + {@link #insert})
+ * para itens que se movem, ou mantida de forma incremental ({@link #insert}/{@link #remove})
+ * para itens parados.
+ *
+ * @param <T> O tipo dos itens indexados.
+ */
+public class SpatialGrid<T> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final float minX;
+    private final float minY;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+
+    // Primeira entrada de cada célula (-1 = célula vazia)
+    private final int[] cellHead;
+
+    // Dados por entrada, indexados pelo número da entrada
+    private int[] next;
+    private float[] xs;
+    private float[] ys;
+    private Object[] items;
+
+    // Arrays de troca usados por compact()
+    private int[] scratchNext;
+    private float[] scratchXs;
+    private float[] scratchYs;
+    private Object[] scratchItems;
+
+    private int highWater = 0;   // Quantidade de entradas já usadas alguma vez desde o último clear
+    private int freeHead = -1;   // Lista de entradas liberadas por remove, reaproveitadas no insert
+    private int size = 0;
+
+    /**
+     * Cria uma grade cobrindo a área [-width/2, width/2] x [-height/2, height/2].
+     * Posições fora da área são presas às células da borda.
+     * @param width Largura do mundo.
+     * @param height Altura do mundo.
+     * @param cellSize Lado de cada célula (normalmente o raio de visão dos agentes).
+     */
+    public SpatialGrid(float width, float height, float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize deve ser positivo: " + cellSize);
+        }
+        this.minX = -width / 2f;
+        this.minY = -height / 2f;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+
+        this.cellHead = new int[columns * rows];
+        Arrays.fill(cellHead, -1);
+
+        this.next = new int[INITIAL_CAPACITY];
+        this.xs = new float[INITIAL_CAPACITY];
+        this.ys = new float[INITIAL_CAPACITY];
+        this.items = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Remove todos os itens, mantendo a capacidade já alocada.
+     */
+    public void clear() {
+        Arrays.fill(cellHead, -1);
+        Arrays.fill(items, 0, highWater, null);
+        highWater = 0;
+        freeHead = -1;
+        size = 0;
+    }
+
+    /**
+     * Adiciona um item na posição informada.
+     */
+    public void insert(T item, float x, float y) {
+        int entry;
+        if (freeHead != -1) {
+            entry = freeHead;
+            freeHead = next[entry];
+        } else {
+            if (highWater == items.length) {
+                grow();
+            }
+            entry = highWater++;
+        }
+
+        int cell = cellIndex(x, y);
+        items[entry] = item;
+        xs[entry] = x;
+        ys[entry] = y;
+        next[entry] = cellHead[cell];
+        cellHead[cell] = entry;
+        size++;
+    }
+
+    /**
+     * Remove um item. A posição deve ser a mesma usada no {@link #insert}.
+     * @return true se o item foi encontrado e removido.
+     */
+    public boolean remove(T item, float x, float y) {
+        int cell = cellIndex(x, y);
+        int previous = -1;
+        for (int e = cellHead[cell]; e != -1; e = next[e]) {
+            if (items[e] == item) {
+                if (previous == -1) {
+                    cellHead[cell] = next[e];
+                } else {
+                    next[previous] = next[e];
+                }
+                items[e] = null;
+                next[e] = freeHead;
+                freeHead = e;
+                size--;
+                return true;
+            }
+            previous = e;
+        }
+        return false;
+    }
+
+    /**
+     * Encontra o item mais próximo de (x, y) com distância estritamente menor que {@code radius}.
+     * As células são visitadas em anéis a partir da célula da consulta; a busca para assim que
+     * nenhum anel seguinte puder ter um item mais próximo. Com células pequenas e muitos itens,
+     * o custo depende da distância até o vizinho encontrado, não do raio.
+     * @param exclude Item a ignorar (ex.: o próprio agente que consulta), ou null.
+     * @param filter Condição que o item precisa satisfazer, ou null para aceitar todos.
+     * @return O item mais próximo, ou null se nenhum estiver dentro do raio.
+     */
+    @SuppressWarnings("unchecked")
+    public T findNearest(float x, float y, float radius, T exclude, Predicate<? super T> filter) {
+        float bestDistSq = radius * radius;
+        T best = null;
+
+        int centerCol = column(x), centerRow = row(y);
+        int colMin = column(x - radius), colMax = column(x + radius);
+        int rowMin = row(y - radius), rowMax = row(y + radius);
+        int maxRing = Math.max(Math.max(centerCol - colMin, colMax - centerCol),
+                Math.max(centerRow - rowMin, rowMax - centerRow));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int r0 = centerRow - ring, r1 = centerRow + ring;
+            int c0 = centerCol - ring, c1 = centerCol + ring;
+            for (int r = Math.max(r0, rowMin); r <= Math.min(r1, rowMax); r++) {
+                // Nas linhas de cima/baixo do anel todas as colunas; nas do meio só as duas pontas
+                boolean edgeRow = r == r0 || r == r1;
+                int cStart = edgeRow ? Math.max(c0, colMin) : c0;
+                int cEnd = edgeRow ? Math.min(c1, colMax) : c1;
+                int step = edgeRow ? 1 : c1 - c0;
+                for (int c = cStart; c <= cEnd; c += step) {
+                    if (c < colMin || c > colMax) continue;
+                    for (int e = cellHead[r * columns + c]; e != -1; e = next[e]) {
+                        T candidate = (T) items[e];
+                        if (candidate == exclude) continue;
+                        float dx = xs[e] - x;
+                        float dy = ys[e] - y;
+                        float distSq = dx * dx + dy * dy;
+                        if (distSq < bestDistSq && (filter == null || filter.test(candidate))) {
+                            bestDistSq = distSq;
+                            best = candidate;
+                        }
+                    }
+                }
+            }
+            // Os anéis seguintes ficam fora do bloco já visitado: se o melhor item está mais
+            // perto que a borda desse bloco, nenhum deles pode ter um item mais próximo
+            if (best != null) {
+                float edge = Math.min(
+                        Math.min(x - (minX + c0 * cellSize), minX + (c1 + 1) * cellSize - x),
+                        Math.min(y - (minY + r0 * cellSize), minY + (r1 + 1) * cellSize - y));
+                if (edge > 0 && bestDistSq <= edge * edge) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Diz se existe algum item com distância estritamente menor que {@code radius} de (x, y).
+     * Visita as células em anéis a partir da célula da consulta e para no primeiro item
+     * encontrado, então em regiões densas custa bem menos que visitar o raio inteiro.
+     * @param exclude Item a ignorar (ex.: o próprio agente que consulta), ou null.
+     * @param filter Condição que o item precisa satisfazer, ou null para aceitar todos.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean anyWithin(float x, float y, float radius, T exclude, Predicate<? super T> filter) {
+        float radiusSq = radius * radius;
+
+        int centerCol = column(x), centerRow = row(y);
+        int colMin = column(x - radius), colMax = column(x + radius);
+        int rowMin = row(y - radius), rowMax = row(y + radius);
+        int maxRing = Math.max(Math.max(centerCol - colMin, colMax - centerCol),
+                Math.max(centerRow - rowMin, rowMax - centerRow));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int r0 = centerRow - ring, r1 = centerRow + ring;
+            int c0 = centerCol - ring, c1 = centerCol + ring;
+            for (int r = Math.max(r0, rowMin); r <= Math.min(r1, rowMax); r++) {
+                boolean edgeRow = r == r0 || r == r1;
+                int cStart = edgeRow ? Math.max(c0, colMin) : c0;
+                int cEnd = edgeRow ? Math.min(c1, colMax) : c1;
+                int step = edgeRow ? 1 : c1 - c0;
+                for (int c = cStart; c <= cEnd; c += step) {
+                    if (c < colMin || c > colMax) continue;
+                    for (int e = cellHead[r * columns + c]; e != -1; e = next[e]) {
+                        T candidate = (T) items[e];
+                        if (candidate == exclude) continue;
+                        float dx = xs[e] - x;
+                        float dy = ys[e] - y;
+                        if (dx * dx + dy * dy < radiusSq && (filter == null || filter.test(candidate))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reordena as entradas para que os itens de cada célula fiquem contíguos na memória.
+     * Depois de um {@link #clear()} + vários {@link #insert}, as entradas ficam na ordem de
+     * inserção e percorrer uma célula salta pela memória; com dezenas de milhares de itens
+     * isso domina o custo das consultas. Custa O(n) e não aloca depois da primeira chamada
+     * com a capacidade atual.
+     */
+    @SuppressWarnings("unchecked")
+    public void compact() {
+        if (scratchItems == null || scratchItems.length != items.length) {
+            scratchNext = new int[items.length];
+            scratchXs = new float[items.length];
+            scratchYs = new float[items.length];
+            scratchItems = new Object[items.length];
+        }
+
+        int out = 0;
+        for (int cell = 0; cell < cellHead.length; cell++) {
+            int e = cellHead[cell];
+            if (e == -1) continue;
+            cellHead[cell] = out;
+            for (; e != -1; e = next[e]) {
+                scratchXs[out] = xs[e];
+                scratchYs[out] = ys[e];
+                scratchItems[out] = items[e];
+                scratchNext[out] = out + 1;
+                out++;
+            }
+            scratchNext[out - 1] = -1;
+        }
+        Arrays.fill(scratchItems, out, highWater, null);
+
+        int[] swapNext = next; next = scratchNext; scratchNext = swapNext;
+        float[] swapXs = xs; xs = scratchXs; scratchXs = swapXs;
+        float[] swapYs = ys; ys = scratchYs; scratchYs = swapYs;
+        Object[] swapItems = items; items = scratchItems; scratchItems = swapItems;
+        Arrays.fill(scratchItems, 0, highWater, null);
+
+        highWater = out;
+        freeHead = -1;
+    }
+
+    public int size() { return size; }
+    public float getCellSize() { return cellSize; }
+
+    private int cellIndex(float x, float y) {
+        return row(y) * columns + column(x);
+    }
+
+    private int column(float x) {
+        int c = (int) Math.floor((x - minX) / cellSize);
+        return c < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+
+    private int row(float y) {
+        int r = (int) Math.floor((y - minY) / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+
+    private void grow() {
+        int newCapacity = items.length * 2;
+        next = Arrays.copyOf(next, newCapacity);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        items = Arrays.copyOf(items, newCapacity);
+    }
+}